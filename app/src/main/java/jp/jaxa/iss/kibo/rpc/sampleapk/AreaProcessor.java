@@ -3,16 +3,24 @@ package jp.jaxa.iss.kibo.rpc.sampleapk;
 import android.util.Log;
 
 import org.opencv.core.Mat;
+import org.opencv.core.MatOfInt;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
+import gov.nasa.arc.astrobee.Kinematics;
 import gov.nasa.arc.astrobee.types.Point;
 import gov.nasa.arc.astrobee.types.Quaternion;
 import jp.jaxa.iss.kibo.rpc.api.KiboRpcApi;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.ArTagDetectionData;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.AxisAlignedBox;
 import jp.jaxa.iss.kibo.rpc.sampleapk.common.Constants;
-import jp.jaxa.iss.kibo.rpc.sampleapk.common.QuaternionPoint;
 import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.AreaEnum;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.CameraEnum;
+import jp.jaxa.iss.kibo.rpc.sampleapk.recorder.FlightRecorder;
 
 /**
  * @author Hashib Islam (#)
@@ -23,143 +31,432 @@ public class AreaProcessor {
     private final KiboRpcApi api;
     private final MovementService movementService;
     private final VisionService visionService;
+    private final MissionScheduler scheduler;
+    private final FlightRecorder flightRecorder;
+    private final DualCameraCaptureService dualCameraCaptureService;
 
-    public AreaProcessor(KiboRpcApi api, MovementService movementService, VisionService visionService) {
+    public AreaProcessor(KiboRpcApi api, MovementService movementService, VisionService visionService,
+                         MissionScheduler scheduler, FlightRecorder flightRecorder,
+                         DualCameraCaptureService dualCameraCaptureService) {
         this.api = api;
         this.movementService = movementService;
         this.visionService = visionService;
+        this.scheduler = scheduler;
+        this.flightRecorder = flightRecorder;
+        this.dualCameraCaptureService = dualCameraCaptureService;
     }
     /**
-     * Rotates the Astrobee in place to face -X, +X, -Z, and +Z directions sequentially,
-     * captures a NavCam image at each orientation, and returns a map with the orientation labels and images.
+     * Moves to the search position of the given area, facing its plane, and searches every pending
+     * plane within SEARCH_CAPTURE_MAX_DISTANCE_M from there (the area's own plane always): rotates in
+     * place through the fewest orientations planned by ViewPlanner, detects markers in each image and
+     * attributes every marker to the plane its viewing ray hits, since one image may show several planes.
+     * With a DualCameraCaptureService attached, planes behind the robot are left to the rear-facing
+     * DockCam instead of turning around for them, and both cameras are captured and read in parallel.
+     * Planes that show no markers get a second, more permissive detection pass over the frames already
+     * taken, while the scheduler allows it.
      *
-     * @return A Map where keys are orientation labels (e.g., "negX", "posX") and values are the corresponding Mat images.
+     * @param area    the area whose search position to move to
+     * @param pending the areas that still need a detection
+     * @return detections per area; areas out of range or without markers are missing
      */
-    private Map<String, Mat> rotateAndCaptureNavCamImages() {
-        // Map to store the orientation labels and the captured images
-        Map<String, Mat> capturedImages = new HashMap<>();
+    public Map<AreaEnum, ArTagDetectionData> searchFromArea(AreaEnum area, Collection<AreaEnum> pending) {
+        Map<AreaEnum, ArTagDetectionData> detections = new EnumMap<>(AreaEnum.class);
+        List<ViewCapture> captures = new ArrayList<>();
 
-        // Get current position to rotate in place
-        Point currentPosition = api.getRobotKinematics().getPosition();
+        try {
+            Point point = Constants.AREA_COORDINATES_MAP.get(area).getPoint();
+            Quaternion orientation = Constants.LOST_ITEM_SEARCH_PLANE_PER_AREA.get(area).getQuaternion();
+
+            if (!movementService.moveToTargetPosition(point, orientation)) {
+                Log.e("AREA_SEARCH", "MoveTo failed for " + area + "; searching from here anyway");
+            }
+
+            Kinematics kinematics = api.getRobotKinematics();
+            Point currentPosition = kinematics != null ? kinematics.getPosition() : null;
+            if (currentPosition == null) {
+                Log.e("AREA_SEARCH", "Failed to get current position");
+                return detections;
+            }
+
+            Map<AreaEnum, AxisAlignedBox> planes = new EnumMap<>(AreaEnum.class);
+            for (AreaEnum candidate : pending) {
+                AxisAlignedBox plane = Constants.LOST_ITEM_SEARCH_PLANE_BOUNDS_PER_AREA.get(candidate);
+                if (candidate == area
+                        || distanceBetween(currentPosition, plane.getCenter()) <= Constants.SEARCH_CAPTURE_MAX_DISTANCE_M) {
+                    planes.put(candidate, plane);
+                }
+            }
+            planes.put(area, Constants.LOST_ITEM_SEARCH_PLANE_BOUNDS_PER_AREA.get(area));
+
+            Map<AreaEnum, List<Mat>> corners = new EnumMap<>(AreaEnum.class);
+            Map<AreaEnum, List<Integer>> ids = new EnumMap<>(AreaEnum.class);
+
+            captures = captureViews(currentPosition, kinematics.getOrientation(), planes,
+                    dualCameraCaptureService != null);
+            long detectionStart = System.currentTimeMillis();
+            int frameCount = 0;
+            for (ViewCapture capture : captures) {
+                detectAndAttribute(capture, false, planes, corners, ids);
+                frameCount += capture.frames.size();
+            }
+            long detectionMs = System.currentTimeMillis() - detectionStart;
+
+            // a second capture of the same view would show the same frame, so retry the
+            // detection instead, with permissive parameters and only where nothing was found
+            if (!corners.keySet().containsAll(planes.keySet())
+                    && scheduler.isRetryDetectionAllowed()
+                    && scheduler.hasSlackFor(estimateRetryDetectionMs(detectionMs, frameCount))) {
+                for (ViewCapture capture : captures) {
+                    detectAndAttribute(capture, true, planes, corners, ids);
+                }
+            }
 
-        if (currentPosition == null) {
-            Log.e("ROTATE_CAPTURE", "Failed to get current position");
-            return capturedImages; // Return empty map if position is unavailable
+            for (AreaEnum found : corners.keySet()) {
+                detections.put(found, new ArTagDetectionData(corners.get(found), toIdMat(ids.get(found))));
+            }
+            Log.d("AREA_SEARCH", "From " + area + " searched " + planes.keySet() + ", found " + detections.keySet());
+        }
+        catch (Exception e) {
+            Log.e("AREA_SEARCH", "Unexpected error searching from " + area, e);
         }
+        finally {
+            for (ViewCapture capture : captures) {
+                for (Mat frame : capture.frames.values()) frame.release();
+            }
+        }
+
+        return detections;
+    }
 
-        // Define orientations for -X, +X, -Z, +Z
-        Quaternion facingNegX = new Quaternion(0f, 0f, 0f, 1f);
-        Quaternion facingPosX = new Quaternion(0f, 0f, -0.707f, 0.707f);
-        Quaternion facingNegZ = new Quaternion(0f, 0.707f, 0f, 0.707f);
-        Quaternion facingPosZ = new Quaternion(0f, -0.707f, 0f, 0.707f);
+    /**
+     * Rotates in place through the views ViewPlanner picks for the given planes, in the order with
+     * the least total rotation, and captures the cameras that have planes assigned at each view.
+     *
+     * @param useDockCam whether to plan for the rear-facing DockCam as well
+     * @return one capture per view that was reached
+     */
+    private List<ViewCapture> captureViews(Point position, Quaternion orientation,
+                                           Map<AreaEnum, AxisAlignedBox> planes, boolean useDockCam) {
+        List<ViewCapture> captures = new ArrayList<>();
 
-        // Store orientations with labels
-        String[] labels = {"negX", "posX", "negZ", "posZ"};
-        Quaternion[] quaternions = {facingNegX, facingPosX, facingNegZ, facingPosZ};
+        double[] navFieldOfView = visionService.getFieldOfView(CameraEnum.NAV_CAM);
+        ViewPlanner viewPlanner = useDockCam
+                ? new ViewPlanner(navFieldOfView, visionService.getFieldOfView(CameraEnum.DOCK_CAM),
+                        Constants.VIEW_PLANNER_FOV_MARGIN)
+                : new ViewPlanner(navFieldOfView[0], navFieldOfView[1], Constants.VIEW_PLANNER_FOV_MARGIN);
+        List<ViewPlanner.View> views = viewPlanner.plan(position, orientation, planes);
 
-        for (int i = 0; i < quaternions.length; i++) {
-            Log.d("ROTATE_CAPTURE", "Rotating to face " + labels[i]);
+        for (ViewPlanner.View view : views) {
+            Log.d("ROTATE_CAPTURE", "Rotating to " + view);
 
-            // Move to the target position and rotate to the correct orientation
-            boolean success = movementService.moveToTargetPosition(currentPosition, quaternions[i]);
+            // Rotate in place unless the robot already faces this way
+            if (!view.isCurrentOrientation()) {
+                boolean success = movementService.moveToTargetPosition(position, view.getOrientation());
 
-            if (!success) {
-                Log.e("ROTATE_CAPTURE", "Failed to rotate to " + labels[i]);
-                continue;
+                if (!success) {
+                    Log.e("ROTATE_CAPTURE", "Failed to rotate to " + view);
+                    continue;
+                }
             }
 
-            // Capture NavCam image
-            Mat navImage = visionService.getMatNavCamImage();
-            if (navImage != null) {
-                capturedImages.put(labels[i], navImage);
+            // Capture only the cameras that have planes to cover from here, both at once when both do
+            List<CameraEnum> cameras = new ArrayList<>();
+            for (CameraEnum camera : CameraEnum.values()) {
+                if (!areasSeenBy(view, camera).isEmpty()) cameras.add(camera);
+            }
 
-                if(Constants.DEBUG_MODE){
-                    api.saveMatImage(navImage, "ROTATE_CAPTURE_NAV_"+labels[i]+ "_" + System.currentTimeMillis() + ".jpg");
+            Map<CameraEnum, Mat> frames = new EnumMap<>(CameraEnum.class);
+            if (cameras.size() > 1) {
+                frames.putAll(dualCameraCaptureService.captureAll(cameras));
+            }
+            else {
+                for (CameraEnum camera : cameras) {
+                    Mat image = visionService.getMatCameraImage(camera);
+                    if (image != null) frames.put(camera, image);
+                }
+            }
+
+            Kinematics kinematics = api.getRobotKinematics();
+            ViewCapture capture = new ViewCapture(view,
+                    kinematics != null && kinematics.getPosition() != null ? kinematics.getPosition() : position,
+                    kinematics != null && kinematics.getOrientation() != null
+                            ? kinematics.getOrientation() : view.getOrientation());
+
+            for (CameraEnum camera : CameraEnum.values()) {
+                if (capture.getAreas(camera).isEmpty()) {
+                    continue;
+                }
+
+                Mat image = frames.get(camera);
+                if (image == null) {
+                    Log.e("ROTATE_CAPTURE", "Failed to capture " + camera + " image for view " + view);
+                    continue;
                 }
 
-                Log.d("ROTATE_CAPTURE", "Captured and stored image for orientation " + labels[i]);
-            } else {
-                Log.e("ROTATE_CAPTURE", "Failed to capture image for orientation " + labels[i]);
+                capture.frames.put(camera, image);
+                if (scheduler.isDebugSaveEnabled()) {
+                    saveCapture(image, camera, capture);
+                }
+            }
+
+            for (Map.Entry<CameraEnum, Mat> frame : frames.entrySet()) {
+                if (!capture.frames.containsKey(frame.getKey())) frame.getValue().release();
             }
+            captures.add(capture);
         }
 
-        return capturedImages;
+        return captures;
     }
 
     /**
-     * Moves Astrobee to the pre-defined search area for the given area,
-     * waits for the NavCam to stabilize, and returns the captured image.
+     * Estimates the permissive pass from the latency measured in the default pass, scaled by how many more
+     * threshold windows the permissive parameters try, and never below the per-frame minimum.
      *
-     * @param area the search area enum
-     * @return the captured NavCam image, or an empty Mat if any step fails
+     * @param detectionMs time the default pass took
+     * @param frameCount  number of frames the default pass detected on
+     * @return estimated time of the permissive pass in milliseconds
      */
-    public Mat getLostItemPlaneNavImage(AreaEnum area) {
-        try {
-            QuaternionPoint plane = Constants.LOST_ITEM_SEARCH_PLANE_PER_AREA.get(area);
-            if (plane == null) {
-                Log.e("LOST_ITEM_SEARCH", "No plane for " + area);
-                return new Mat();
+    private long estimateRetryDetectionMs(long detectionMs, int frameCount) {
+        long measured = (long) Math.ceil(detectionMs * visionService.getPermissiveDetectionCostFactor());
+        long minimum = frameCount * Constants.RETRY_DETECTION_MIN_ESTIMATE_PER_FRAME_MS;
+        long estimate = Math.max(measured, minimum);
+        Log.d("AREA_SEARCH", "Permissive pass estimated at " + estimate + "ms for " + frameCount
+                + " frames (default pass took " + detectionMs + "ms)");
+        return estimate;
+    }
+
+    /**
+     * Runs marker detection on the frames of a view capture whose assigned planes still lack
+     * markers, and attributes what is found to the planes. The frames of both cameras are read in
+     * parallel when a DualCameraCaptureService is attached.
+     *
+     * @param permissive true for the second pass with permissive detector parameters
+     */
+    private void detectAndAttribute(ViewCapture capture, boolean permissive, Map<AreaEnum, AxisAlignedBox> planes,
+                                    Map<AreaEnum, List<Mat>> corners, Map<AreaEnum, List<Integer>> ids) {
+        Map<CameraEnum, Mat> frames = new EnumMap<>(CameraEnum.class);
+        Map<CameraEnum, AreaEnum> frameAreas = new EnumMap<>(CameraEnum.class);
+        for (Map.Entry<CameraEnum, Mat> frame : capture.frames.entrySet()) {
+            List<AreaEnum> assigned = capture.getAreas(frame.getKey());
+            if (!corners.keySet().containsAll(assigned)) {
+                frames.put(frame.getKey(), frame.getValue());
+                frameAreas.put(frame.getKey(), assigned.get(0));
             }
+        }
 
-            Point currentPosition = api.getRobotKinematics().getPosition();
+        Map<CameraEnum, ArTagDetectionData> detections = new EnumMap<>(CameraEnum.class);
+        if (dualCameraCaptureService != null) {
+            detections.putAll(dualCameraCaptureService.detectAll(frames, frameAreas, permissive));
+        }
+        else {
+            for (Map.Entry<CameraEnum, Mat> frame : frames.entrySet()) {
+                List<Mat> frameCorners = new ArrayList<>();
+                Mat frameIds = new Mat();
+                visionService.readArTag(frame.getValue(), frameCorners, frameIds, frameAreas.get(frame.getKey()),
+                        frame.getKey(), permissive);
 
-            if (currentPosition == null) {
-                Log.e("LOST_ITEM_SEARCH", "Failed to get current position");
-                return new Mat();
+                if (frameIds.total() > 0) {
+                    detections.put(frame.getKey(), new ArTagDetectionData(frameCorners, frameIds));
+                }
+                else {
+                    frameIds.release();
+                }
             }
+        }
+
+        for (Map.Entry<CameraEnum, ArTagDetectionData> detection : detections.entrySet()) {
+            attributeMarkers(detection.getValue(), detection.getKey(), capture, planes, corners, ids);
+            detection.getValue().getIds().release();
+        }
+    }
 
-            boolean moveSuccess = movementService.moveToTargetPosition(
-                    currentPosition,
-                    plane.getQuaternion()
-            );
+    /**
+     * Assigns each detected marker to the plane hit by the ray through its center, using the camera
+     * matrix and the pose at capture time. Every known search plane is tested, so markers on a plane
+     * outside the searched set (e.g. one found from an earlier stop) are dropped rather than credited
+     * to a nearby one. Markers that hit no plane at all go to the camera's only assigned plane if it
+     * has just one; a marker id seen again for the same plane is skipped.
+     */
+    private void attributeMarkers(ArTagDetectionData detection, CameraEnum camera, ViewCapture capture,
+                                  Map<AreaEnum, AxisAlignedBox> planes,
+                                  Map<AreaEnum, List<Mat>> corners, Map<AreaEnum, List<Integer>> ids) {
+        double[] k = visionService.getCameraMatrix(camera);
+        double fx = k != null ? k[0] : Constants.NAV_CAM_FALLBACK_FOCAL_PX;
+        double fy = k != null ? k[4] : Constants.NAV_CAM_FALLBACK_FOCAL_PX;
+        double cx = k != null ? k[2] : Constants.NAV_CAM_WIDTH / 2d;
+        double cy = k != null ? k[5] : Constants.NAV_CAM_HEIGHT / 2d;
 
-            if (!moveSuccess) {
-                Log.e("LOST_ITEM_SEARCH", "MoveTo failed for area " + area);
-                return new Mat();
+        List<AreaEnum> assigned = capture.getAreas(camera);
+
+        for (int i = 0; i < detection.getCorners().size(); i++) {
+            Mat marker = detection.getCorners().get(i);
+            int id = (int) detection.getIds().get(i, 0)[0];
+
+            double u = 0d, v = 0d;
+            for (int c = 0; c < marker.cols(); c++) {
+                double[] corner = marker.get(0, c);
+                u += corner[0] / marker.cols();
+                v += corner[1] / marker.cols();
             }
 
-            Mat navImage = visionService.getMatNavCamImage();
-            if (navImage == null || navImage.empty()) {
-                Log.e("LOST_ITEM_SEARCH", "Captured empty NavCam frame for " + area);
-                return new Mat();
+            // image columns run along body +Y and rows along +Z; the DockCam looks back along -X
+            double[] ray = camera == CameraEnum.DOCK_CAM
+                    ? new double[]{-1d, -(u - cx) / fx, (v - cy) / fy}
+                    : new double[]{1d, (u - cx) / fx, (v - cy) / fy};
+            AreaEnum area = planeHitBy(capture.position, ViewPlanner.rotate(capture.orientation, ray),
+                    Constants.LOST_ITEM_SEARCH_PLANE_BOUNDS_PER_AREA);
+
+            if (area != null && !planes.containsKey(area)) {
+                Log.d("AREA_SEARCH", "Marker " + id + " seen by " + camera + " lies on " + area
+                        + ", which is not searched from here; skipped");
+                continue;
+            }
+            if (area == null && assigned.size() == 1) {
+                area = assigned.get(0);
+            }
+            if (area == null) {
+                Log.w("AREA_SEARCH", "Marker " + id + " seen by " + camera + " hits no search plane; skipped");
+                continue;
             }
 
-            if (Constants.DEBUG_MODE) {
-                api.saveMatImage(navImage,
-                        "SEARCH_CAPTURE_NAV_" + area + "_" + System.currentTimeMillis() + ".jpg");
+            if (!ids.containsKey(area)) {
+                ids.put(area, new ArrayList<Integer>());
+                corners.put(area, new ArrayList<Mat>());
+            }
+            if (!ids.get(area).contains(id)) {
+                ids.get(area).add(id);
+                corners.get(area).add(marker);
             }
-            return navImage;
-        }
-        catch (Exception e) {
-            Log.e("LOST_ITEM_SEARCH", "Exception getting NavCam for " + area, e);
-            return new Mat();
         }
     }
 
     /**
-     * Attempts to move the robot to a given search area and capture its navigation camera image.
-     *
-     * @param area        The logical search area being processed (used for logging and image lookup).
-     * @param point       The 3D coordinates of the target position to move to.
-     * @param orientation The desired orientation (as a quaternion) for the robot at the target position.
-     * @return            The captured NavCam image for the lost-item search plane in this area,
-     *                    or an empty Mat if the move fails, no image is available, or an unexpected error occurs.
+     * @return the plane whose bounds lie closest to where the ray crosses its flat axis,
+     *         if within MARKER_ATTRIBUTION_TOLERANCE_M, otherwise null
      */
-    public Mat processSearchArea(AreaEnum area, Point point, Quaternion orientation) {
-        try {
-            boolean moved = movementService.moveToTargetPosition(point, orientation);
-            if (!moved) {
-                Log.e("PROCESS_SEARCH_AREA", "MoveTo failed for " + area + "; continuing anyway");
+    private static AreaEnum planeHitBy(Point origin, double[] ray, Map<AreaEnum, AxisAlignedBox> planes) {
+        double[] from = {origin.getX(), origin.getY(), origin.getZ()};
+        AreaEnum best = null;
+        double bestDistance = Constants.MARKER_ATTRIBUTION_TOLERANCE_M;
+
+        for (Map.Entry<AreaEnum, AxisAlignedBox> entry : planes.entrySet()) {
+            AxisAlignedBox box = entry.getValue();
+            double[] min = {box.getXMin(), box.getYMin(), box.getZMin()};
+            double[] max = {box.getXMax(), box.getYMax(), box.getZMax()};
+
+            // the plane is flat along its thinnest axis
+            int axis = 0;
+            for (int i = 1; i < 3; i++) {
+                if (max[i] - min[i] < max[axis] - min[axis]) axis = i;
+            }
+            if (Math.abs(ray[axis]) < 1e-9) {
+                continue;
+            }
+
+            double t = ((min[axis] + max[axis]) / 2 - from[axis]) / ray[axis];
+            if (t <= 0) {
+                continue;
+            }
+
+            double distanceSquared = 0d;
+            for (int i = 0; i < 3; i++) {
+                double hit = from[i] + t * ray[i];
+                double outside = Math.max(0d, Math.max(min[i] - hit, hit - max[i]));
+                distanceSquared += outside * outside;
             }
 
-            Mat nav = getLostItemPlaneNavImage(area);
-            return nav != null ? nav : new Mat();
+            double distance = Math.sqrt(distanceSquared);
+            if (distance <= bestDistance) {
+                bestDistance = distance;
+                best = entry.getKey();
+            }
         }
-        catch (Exception e) {
-            Log.e("PROCESS_SEARCH_AREA", "Unexpected error in " + area, e);
-            return new Mat();
+        return best;
+    }
+
+    /**
+     * @return the planes the given camera covers at the view; the DockCam looks back along -X
+     */
+    private static List<AreaEnum> areasSeenBy(ViewPlanner.View view, CameraEnum camera) {
+        return camera == CameraEnum.DOCK_CAM ? view.getDockCamAreas() : view.getCoveredAreas();
+    }
+
+    private static Mat toIdMat(List<Integer> ids) {
+        int[] values = new int[ids.size()];
+        for (int i = 0; i < values.length; i++) values[i] = ids.get(i);
+        return new MatOfInt(values);
+    }
+
+    private static double distanceBetween(Point a, Point b) {
+        double dx = a.getX() - b.getX();
+        double dy = a.getY() - b.getY();
+        double dz = a.getZ() - b.getZ();
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private void saveCapture(Mat image, CameraEnum camera, ViewCapture capture) {
+        String label = capture.getLabel(camera);
+        if (camera == CameraEnum.NAV_CAM) {
+            List<AreaEnum> areas = capture.getAreas(camera);
+            saveRawFrame(image, areas.get(0), compactLabel(areas), "ROTATE_CAPTURE_NAV_" + label);
+        }
+        else {
+            // the flight record holds NavCam intrinsics only, so DockCam frames always go to JPEG
+            api.saveMatImage(image, "ROTATE_CAPTURE_" + label + "_" + System.currentTimeMillis() + ".jpg");
         }
     }
 
+    /**
+     * @return the areas as e.g. "AREA_1+2+3", short enough for the flight record's 16-byte label
+     */
+    private static String compactLabel(List<AreaEnum> areas) {
+        StringBuilder label = new StringBuilder();
+        for (AreaEnum area : areas) {
+            label.append(label.length() == 0 ? area.name() : "+" + area.name().substring("AREA_".length()));
+        }
+        return label.toString();
+    }
 
+    /**
+     * Stores a raw NavCam frame for offline analysis. Frames go to the flight recorder together
+     * with the current kinematics when one is attached; otherwise they are saved as a JPEG.
+     *
+     * @param frame      the raw NavCam frame
+     * @param area       the area the frame belongs to, or null
+     * @param label      short tag stored with the frame in the flight record
+     * @param filePrefix JPEG file name prefix used when no recorder is attached
+     */
+    private void saveRawFrame(Mat frame, AreaEnum area, String label, String filePrefix) {
+        if (flightRecorder != null
+                && flightRecorder.record(frame, visionService.getLastFrameTimeMs(), area, label,
+                api.getRobotKinematics())) {
+            return;
+        }
+
+        api.saveMatImage(frame, filePrefix + "_" + System.currentTimeMillis() + ".jpg");
+    }
+
+    /**
+     * The frames taken at one view, with the pose they were taken from.
+     */
+    private static class ViewCapture {
+        private final ViewPlanner.View view;
+        private final Point position;
+        private final Quaternion orientation;
+        private final Map<CameraEnum, Mat> frames = new EnumMap<>(CameraEnum.class);
+
+        ViewCapture(ViewPlanner.View view, Point position, Quaternion orientation) {
+            this.view = view;
+            this.position = position;
+            this.orientation = orientation;
+        }
+
+        List<AreaEnum> getAreas(CameraEnum camera) {
+            return areasSeenBy(view, camera);
+        }
+
+        String getLabel(CameraEnum camera) {
+            return camera == CameraEnum.DOCK_CAM ? "DOCK_" + view.getDockCamLabel() : view.getLabel();
+        }
+    }
 }
@@ -0,0 +1,194 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk;
+
+import android.util.Log;
+
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.ArTagDetectionData;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.Constants;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.AreaEnum;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.CameraEnum;
+
+/**
+ * Captures the NavCam and the DockCam in parallel at one stop and runs marker detection on both
+ * streams, so planes behind the robot are seen without turning around.
+ * Each camera has its own worker thread; VisionService keeps the per-camera intrinsics and
+ * undistortion maps, and runs captures of one camera one at a time. A capture that misses the
+ * deadline is interrupted, which stops its frame polling; detections are always waited for.
+ *
+ * @author Hashib Islam (#)
+ * @since 2025-04-24
+ */
+
+public class DualCameraCaptureService {
+    private final VisionService visionService;
+    private final ExecutorService executor;
+
+    public DualCameraCaptureService(VisionService visionService) {
+        this.visionService = visionService;
+        this.executor = Executors.newFixedThreadPool(CameraEnum.values().length);
+    }
+
+    /**
+     * Grabs a fresh frame from each of the given cameras at the same time.
+     *
+     * @param cameras the cameras to read
+     * @return the captured frames by camera; cameras that failed or timed out are missing
+     */
+    public Map<CameraEnum, Mat> captureAll(Collection<CameraEnum> cameras) {
+        Map<CameraEnum, Future<Mat>> pending = new EnumMap<>(CameraEnum.class);
+        for (final CameraEnum camera : cameras) {
+            pending.put(camera, executor.submit(new Callable<Mat>() {
+                @Override
+                public Mat call() {
+                    Mat frame = visionService.getMatCameraImage(camera);
+                    // cancelled by captureAll: nobody will pick the frame up
+                    if (frame != null && Thread.currentThread().isInterrupted()) {
+                        frame.release();
+                        return null;
+                    }
+                    return frame;
+                }
+            }));
+        }
+
+        Map<CameraEnum, Mat> frames = new EnumMap<>(CameraEnum.class);
+        long deadline = System.currentTimeMillis() + Constants.DUAL_CAPTURE_TIMEOUT_MS;
+        for (Map.Entry<CameraEnum, Future<Mat>> entry : pending.entrySet()) {
+            Mat frame = await(entry.getKey(), entry.getValue(), deadline);
+            if (frame != null && !frame.empty()) {
+                frames.put(entry.getKey(), frame);
+            }
+        }
+
+        Log.d("DUAL_CAPTURE", "Captured " + frames.keySet());
+        return frames;
+    }
+
+    /**
+     * Detects markers in every frame in parallel, undistorting each with its own camera's intrinsics.
+     * Returns only once every detection has finished, even past DUAL_CAPTURE_TIMEOUT_MS: detection
+     * cannot be interrupted and reads the caller's frames, which the caller releases afterwards.
+     *
+     * @param frames     the frames by camera, as returned by captureAll(Collection)
+     * @param areas      the area each frame belongs to (used for logging and debug file names)
+     * @param permissive true to use the permissive detector parameters, see VisionService.readArTag
+     * @return the detections by camera; cameras with no markers are missing
+     */
+    public Map<CameraEnum, ArTagDetectionData> detectAll(Map<CameraEnum, Mat> frames,
+                                                         final Map<CameraEnum, AreaEnum> areas,
+                                                         final boolean permissive) {
+        Map<CameraEnum, Future<ArTagDetectionData>> pending = new EnumMap<>(CameraEnum.class);
+        for (final Map.Entry<CameraEnum, Mat> entry : frames.entrySet()) {
+            pending.put(entry.getKey(), executor.submit(new Callable<ArTagDetectionData>() {
+                @Override
+                public ArTagDetectionData call() {
+                    List<Mat> corners = new ArrayList<>();
+                    Mat ids = new Mat();
+                    visionService.readArTag(entry.getValue(), corners, ids, areas.get(entry.getKey()),
+                            entry.getKey(), permissive);
+                    if (ids.total() == 0) {
+                        ids.release();
+                        return null;
+                    }
+                    return new ArTagDetectionData(corners, ids);
+                }
+            }));
+        }
+
+        Map<CameraEnum, ArTagDetectionData> detections = new EnumMap<>(CameraEnum.class);
+        long deadline = System.currentTimeMillis() + Constants.DUAL_CAPTURE_TIMEOUT_MS;
+        for (Map.Entry<CameraEnum, Future<ArTagDetectionData>> entry : pending.entrySet()) {
+            ArTagDetectionData detection = awaitDetection(entry.getKey(), entry.getValue(), deadline);
+            if (detection != null) {
+                detections.put(entry.getKey(), detection);
+            }
+        }
+
+        return detections;
+    }
+
+    /**
+     * Stops the worker threads. Call once the mission no longer needs the cameras.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Waits for a capture task until the shared deadline, cancelling it on timeout.
+     *
+     * @return the task's result, or null if it failed or did not finish in time
+     */
+    private <T> T await(CameraEnum camera, Future<T> future, long deadline) {
+        try {
+            long remaining = Math.max(0L, deadline - System.currentTimeMillis());
+            return future.get(remaining, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException e) {
+            Log.e("DUAL_CAPTURE", camera + " did not finish within " + Constants.DUAL_CAPTURE_TIMEOUT_MS + "ms");
+            future.cancel(true);
+        }
+        catch (ExecutionException e) {
+            Log.e("DUAL_CAPTURE", camera + " task failed", e.getCause());
+        }
+        catch (InterruptedException e) {
+            Log.e("DUAL_CAPTURE", "Interrupted while waiting for " + camera, e);
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Waits for a detection task without ever cancelling it, warning once it runs past the deadline.
+     * Interrupts of the calling thread are deferred until the task is done.
+     *
+     * @return the task's result, or null if it failed
+     */
+    private <T> T awaitDetection(CameraEnum camera, Future<T> future, long deadline) {
+        boolean interrupted = false;
+        boolean late = false;
+        try {
+            while (true) {
+                try {
+                    if (late) {
+                        return future.get();
+                    }
+                    long remaining = Math.max(0L, deadline - System.currentTimeMillis());
+                    return future.get(remaining, TimeUnit.MILLISECONDS);
+                }
+                catch (TimeoutException e) {
+                    Log.w("DUAL_CAPTURE", camera + " detection still running after "
+                            + Constants.DUAL_CAPTURE_TIMEOUT_MS + "ms; waiting for it to finish");
+                    late = true;
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+                catch (ExecutionException e) {
+                    Log.e("DUAL_CAPTURE", camera + " detection failed", e.getCause());
+                    return null;
+                }
+            }
+        }
+        finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
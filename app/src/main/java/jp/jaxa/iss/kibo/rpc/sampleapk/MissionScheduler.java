@@ -0,0 +1,135 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk;
+
+import android.util.Log;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.Constants;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.DegradationLevel;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.MissionPhase;
+
+/**
+ * Tracks elapsed mission time against the mission time limit and keeps time reserved for the
+ * scoring phases that are still pending. As the slack (remaining time minus pending reservations)
+ * shrinks, it degrades retries, waits, debug saves and retry detections so the scoring steps are reached in time.
+ * Safe to query from the camera capture threads.
+ *
+ * @author Hashib Islam (#)
+ * @since 2025-04-24
+ */
+
+public class MissionScheduler {
+    private final Set<MissionPhase> pendingPhases = EnumSet.allOf(MissionPhase.class);
+    private long missionStartMs = -1L;
+    private DegradationLevel lastLevel = DegradationLevel.NORMAL;
+
+    /**
+     * Starts the mission clock. Call right after api.startMission().
+     */
+    public void start() {
+        missionStartMs = System.currentTimeMillis();
+        Log.d("SCHEDULER", "Mission clock started, budget " + Constants.MISSION_TIME_LIMIT_MS + "ms");
+    }
+
+    /**
+     * Releases the time reserved for a phase once it is done.
+     *
+     * @param phase the completed phase
+     */
+    public synchronized void completePhase(MissionPhase phase) {
+        pendingPhases.remove(phase);
+        Log.d("SCHEDULER", phase + " done at " + getElapsedMs() + "ms, slack " + getSlackMs() + "ms");
+    }
+
+    public long getElapsedMs() {
+        return missionStartMs < 0 ? 0L : System.currentTimeMillis() - missionStartMs;
+    }
+
+    public long getRemainingMs() {
+        return Constants.MISSION_TIME_LIMIT_MS - getElapsedMs();
+    }
+
+    /**
+     * @return remaining time minus the reservations of all pending phases
+     */
+    public synchronized long getSlackMs() {
+        long reserved = 0L;
+        for (MissionPhase phase : pendingPhases) {
+            reserved += Constants.PHASE_RESERVATION_MS.get(phase);
+        }
+        return getRemainingMs() - reserved;
+    }
+
+    /**
+     * @param estimateMs expected duration of an optional step
+     * @return true if the step fits in the current slack
+     */
+    public boolean hasSlackFor(long estimateMs) {
+        return getSlackMs() >= estimateMs;
+    }
+
+    public synchronized DegradationLevel getLevel() {
+        long slack = getSlackMs();
+
+        DegradationLevel level;
+        if (slack > Constants.SLACK_REDUCED_THRESHOLD_MS) {
+            level = DegradationLevel.NORMAL;
+        }
+        else if (slack > Constants.SLACK_MINIMAL_THRESHOLD_MS) {
+            level = DegradationLevel.REDUCED;
+        }
+        else {
+            level = DegradationLevel.MINIMAL;
+        }
+
+        if (level != lastLevel) {
+            Log.w("SCHEDULER", "Degradation " + lastLevel + " -> " + level + " with " + slack + "ms slack");
+            lastLevel = level;
+        }
+        return level;
+    }
+
+    /**
+     * @return how many attempts a move or capture may take at the current level
+     */
+    public int getMaxRetries() {
+        switch (getLevel()) {
+            case NORMAL:
+                return Constants.MAX_RETRIES;
+            case REDUCED:
+                return Math.max(1, Constants.MAX_RETRIES - 1);
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * @param milliseconds a nominal wait
+     * @return the wait shortened for the current level
+     */
+    public int scaleWait(int milliseconds) {
+        switch (getLevel()) {
+            case NORMAL:
+                return milliseconds;
+            case REDUCED:
+                return milliseconds / 2;
+            default:
+                return milliseconds / 4;
+        }
+    }
+
+    /**
+     * @return true if debug images should be saved; disabled as soon as time gets short
+     */
+    public boolean isDebugSaveEnabled() {
+        return Constants.DEBUG_MODE && getLevel() == DegradationLevel.NORMAL;
+    }
+
+    /**
+     * @return true if optional second detection passes (e.g. after a miss) are still worth their time
+     */
+    public boolean isRetryDetectionAllowed() {
+        return getLevel() != DegradationLevel.MINIMAL;
+    }
+}
@@ -2,6 +2,10 @@ package jp.jaxa.iss.kibo.rpc.sampleapk;
 
 import android.util.Log;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gov.nasa.arc.astrobee.Kinematics;
 import gov.nasa.arc.astrobee.Result;
 import gov.nasa.arc.astrobee.types.Point;
 import gov.nasa.arc.astrobee.types.Quaternion;
@@ -15,14 +19,27 @@ import jp.jaxa.iss.kibo.rpc.sampleapk.common.Constants;
 
 public class MovementService {
     private final KiboRpcApi api;
+    private final MissionScheduler scheduler;
+    private final PathPlanner pathPlanner;
+
+    // number of moves started so far, so captures can tell whether the view may have changed
+    private final AtomicLong moveCount = new AtomicLong();
 
-    public MovementService(KiboRpcApi api) {
+    public MovementService(KiboRpcApi api, MissionScheduler scheduler) {
         this.api = api;
+        this.scheduler = scheduler;
+        this.pathPlanner = new PathPlanner(
+                Constants.KEEP_IN_ZONES,
+                Constants.KEEP_OUT_ZONES,
+                Constants.PATH_PLANNER_CLEARANCE_M,
+                Constants.PATH_PLANNER_CACHE_RESOLUTION_M
+        );
     }
 
     /**
-     * Attempts to move Astrobee to the specified position and orientation.
-     * Retries the movement up to MAX_RETRIES times if it fails.
+     * Attempts to move Astrobee to the specified position and orientation, following
+     * the collision-free waypoints planned around the keep-out zones.
+     * Each segment is retried up to the scheduler's retry limit if it fails.
      *
      * @param point the target position as a Point
      * @param quaternion the target orientation as a Quaternion
@@ -36,13 +53,46 @@ public class MovementService {
             return false;
         }
 
+        Kinematics kinematics = api.getRobotKinematics();
+        Point currentPosition = kinematics != null ? kinematics.getPosition() : null;
+        if(currentPosition == null){
+            Log.d("MOVE", "Current position unknown, moving directly");
+            return moveDirect(point, quaternion, true);
+        }
+
+        List<Point> waypoints = pathPlanner.plan(currentPosition, point);
+        for(int i = 0; i < waypoints.size() - 1; i++){
+            Log.d("MOVE", "Following waypoint " + (i + 1) + "/" + waypoints.size() + ": " + waypoints.get(i));
+
+            if(!moveDirect(waypoints.get(i), quaternion, false)){
+                Log.d("MOVE", "Move to waypoint failed");
+                return false;
+            }
+        }
+
+        return moveDirect(point, quaternion, true);
+    }
+
+    /**
+     * Issues a single straight-line move, retrying up to the scheduler's retry limit if it fails.
+     *
+     * @param point the target position as a Point
+     * @param quaternion the target orientation as a Quaternion
+     * @param settle whether to wait for the robot to settle after a successful move
+     * @return true if the movement succeeds, false otherwise
+     */
+    private boolean moveDirect(Point point, Quaternion quaternion, boolean settle){
+        moveCount.incrementAndGet();
+
         int retryCount = 0;
         Result result;
         do {
             result = api.moveTo(point, quaternion, true);
 
             if(result.hasSucceeded()){
-                wait(Constants.MOVE_TO_COMPLETE_WAIT_MS);
+                if(settle){
+                    wait(scheduler.scaleWait(Constants.MOVE_TO_COMPLETE_WAIT_MS));
+                }
 
                 return true;
             }
@@ -50,16 +100,24 @@ public class MovementService {
 
             Log.d("MOVE","Move attempt :" + retryCount);
 
-            wait(Constants.RETRY_WAIT_MS);
-        } while(!result.hasSucceeded() && retryCount < Constants.MAX_RETRIES);
+            wait(scheduler.scaleWait(Constants.RETRY_WAIT_MS));
+        } while(!result.hasSucceeded() && retryCount < scheduler.getMaxRetries());
 
         Log.d("MOVE", "Move to target failed");
         return false;
     }
 
+    /**
+     * @return the number of moves started so far (each waypoint counts as one move)
+     */
+    public long getMoveCount(){
+        return moveCount.get();
+    }
+
     /**
      * Pauses the current thread for a specified number of milliseconds.
      * This is typically used to wait between hardware polling attempts or retries.
+     * Returns early when the thread is interrupted, leaving its interrupt flag set.
      *
      * @param milliseconds the amount of time to pause execution, in milliseconds
      */
@@ -69,8 +127,9 @@ public class MovementService {
         try{
             Thread.sleep(milliseconds);
         }catch (InterruptedException e){
-            Log.d("WAIT", "Error Pausing for: "+milliseconds+"ms");
-            e.printStackTrace();
+            Log.d("WAIT", "Interrupted while pausing for: "+milliseconds+"ms");
+            // keep the flag so polling loops on cancelled worker threads can stop
+            Thread.currentThread().interrupt();
         }
 
         return;
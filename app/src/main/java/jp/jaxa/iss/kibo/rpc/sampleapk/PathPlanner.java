@@ -0,0 +1,358 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import gov.nasa.arc.astrobee.types.Point;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.AxisAlignedBox;
+
+/**
+ * Plans collision-free straight-line waypoint paths inside the keep-in zones (KIZ)
+ * around the keep-out zones (KOZ). Keep-out zones are inflated and keep-in zones are shrunk
+ * by a clearance margin, and the shortest path is searched over the visibility graph of the
+ * resulting box corners. Results are cached per (start, goal) pair.
+ *
+ * @author Hashib Islam (#)
+ * @since 2025-04-24
+ */
+
+public class PathPlanner {
+    // distance kept between graph nodes and inflated keep-out faces
+    private static final double NODE_OFFSET = 0.01;
+    private static final double EPSILON = 1e-6;
+
+    private final List<AxisAlignedBox> keepInZones;
+    // keep-in zones shrunk by the clearance, plus connectors through their overlaps
+    private final List<AxisAlignedBox> safeZones;
+    private final List<AxisAlignedBox> keepOutZones;
+    private final List<Point> graphNodes;
+    private final double cacheResolution;
+    private final Map<String, List<Point>> pathCache = new HashMap<>();
+
+    /**
+     * @param keepInZones     boxes the robot center must stay within (their union)
+     * @param keepOutZones    boxes the robot must not enter
+     * @param clearance       margin kept from every keep-out zone and outer keep-in wall
+     * @param cacheResolution start and goal are rounded to this grid (meters) to build cache keys
+     */
+    public PathPlanner(List<AxisAlignedBox> keepInZones, List<AxisAlignedBox> keepOutZones,
+                       double clearance, double cacheResolution) {
+        this.keepInZones = Collections.unmodifiableList(new ArrayList<>(keepInZones));
+        this.safeZones = Collections.unmodifiableList(buildSafeZones(keepInZones, clearance));
+        this.cacheResolution = cacheResolution;
+
+        List<AxisAlignedBox> inflated = new ArrayList<>();
+        for (AxisAlignedBox zone : keepOutZones) {
+            inflated.add(zone.inflate(clearance));
+        }
+        this.keepOutZones = Collections.unmodifiableList(inflated);
+
+        this.graphNodes = Collections.unmodifiableList(buildGraphNodes());
+    }
+
+    /**
+     * Finds the shortest feasible path from start to goal.
+     *
+     * @param start the current position
+     * @param goal  the target position
+     * @return the waypoints to visit after start, ending with goal. Falls back to a direct
+     *         move ({goal}) when start and goal coincide, either endpoint lies outside the keep-in
+     *         zones or in a keep-out zone, or no path exists.
+     */
+    public List<Point> plan(Point start, Point goal) {
+        String key = cacheKey(start, goal);
+        List<Point> cached = pathCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<Point> path = search(start, goal);
+        pathCache.put(key, path);
+
+        Log.d("PATH_PLANNER", "Planned " + path.size() + " segment(s) from " + start + " to " + goal);
+        return path;
+    }
+
+    private List<Point> search(Point start, Point goal) {
+        // e.g. an in-place rotation
+        if (distanceBetween(start, goal) < cacheResolution || isSegmentFree(start, goal)) {
+            return Collections.singletonList(goal);
+        }
+
+        // a path could only lead up to the keep-in wall and leave it anyway
+        if (!isInsideKeepIn(start) || !isInsideKeepIn(goal)) {
+            Log.w("PATH_PLANNER", (isInsideKeepIn(goal) ? "Start " + start : "Goal " + goal)
+                    + " lies outside the keep-in zones; moving directly");
+            return Collections.singletonList(goal);
+        }
+
+        // endpoints closer than the clearance to a wall are first pulled into the free space
+        Point entry = toFreeSpace(start);
+        Point exit = toFreeSpace(goal);
+        if (entry == null || exit == null) {
+            Log.w("PATH_PLANNER", "Start or goal inside a keep-out zone; moving directly");
+            return Collections.singletonList(goal);
+        }
+
+        List<Point> path = new ArrayList<>();
+        if (entry != start) path.add(entry);
+
+        // both endpoints may be pulled onto the same free point
+        if (distanceBetween(entry, exit) > EPSILON) {
+            List<Point> inner = searchGraph(entry, exit);
+            if (inner == null) {
+                Log.w("PATH_PLANNER", "No feasible path from " + start + " to " + goal + "; moving directly");
+                return Collections.singletonList(goal);
+            }
+            path.addAll(inner);
+        }
+
+        if (exit != goal) path.add(goal);
+        return Collections.unmodifiableList(path);
+    }
+
+    /**
+     * Dijkstra from start to goal, both in free space.
+     *
+     * @return the waypoints after start, ending with goal, or null if no path exists
+     */
+    private List<Point> searchGraph(Point start, Point goal) {
+        if (isSegmentFree(start, goal)) {
+            return Collections.singletonList(goal);
+        }
+
+        // node 0 = start, node 1 = goal, rest = corners
+        List<Point> nodes = new ArrayList<>();
+        nodes.add(start);
+        nodes.add(goal);
+        nodes.addAll(graphNodes);
+
+        int count = nodes.size();
+        double[] distance = new double[count];
+        int[] previous = new int[count];
+        boolean[] visited = new boolean[count];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        Arrays.fill(previous, -1);
+        distance[0] = 0d;
+
+        // Dijkstra over the dense visibility graph; edges are checked lazily
+        for (int iteration = 0; iteration < count; iteration++) {
+            int current = -1;
+            for (int i = 0; i < count; i++) {
+                if (!visited[i] && (current == -1 || distance[i] < distance[current])) {
+                    current = i;
+                }
+            }
+            if (current == -1 || distance[current] == Double.POSITIVE_INFINITY || current == 1) {
+                break;
+            }
+            visited[current] = true;
+
+            for (int next = 0; next < count; next++) {
+                if (visited[next]) {
+                    continue;
+                }
+
+                double candidate = distance[current] + distanceBetween(nodes.get(current), nodes.get(next));
+                if (candidate < distance[next] && isSegmentFree(nodes.get(current), nodes.get(next))) {
+                    distance[next] = candidate;
+                    previous[next] = current;
+                }
+            }
+        }
+
+        if (previous[1] == -1) {
+            return null;
+        }
+
+        List<Point> path = new ArrayList<>();
+        for (int node = 1; node != 0; node = previous[node]) {
+            path.add(nodes.get(node));
+        }
+        Collections.reverse(path);
+
+        return path;
+    }
+
+    /**
+     * Shrinks every keep-in zone by the clearance. Where two zones overlap, the overlap is added
+     * as a connector shrunk on all but its thinnest axis: that axis crosses the shared faces,
+     * which are not walls, so the passage between the zones stays open however narrow it is.
+     */
+    private static List<AxisAlignedBox> buildSafeZones(List<AxisAlignedBox> keepInZones, double clearance) {
+        List<AxisAlignedBox> zones = new ArrayList<>();
+        for (AxisAlignedBox zone : keepInZones) {
+            zones.add(zone.inflate(-clearance));
+        }
+
+        for (int i = 0; i < keepInZones.size(); i++) {
+            for (int j = i + 1; j < keepInZones.size(); j++) {
+                AxisAlignedBox overlap = keepInZones.get(i).intersect(keepInZones.get(j));
+                if (overlap == null) {
+                    continue;
+                }
+
+                double dx = overlap.getXMax() - overlap.getXMin();
+                double dy = overlap.getYMax() - overlap.getYMin();
+                double dz = overlap.getZMax() - overlap.getZMin();
+                double cx = dx <= dy && dx <= dz ? 0d : clearance;
+                double cy = cx != 0d && dy <= dz ? 0d : clearance;
+                double cz = cx != 0d && cy != 0d ? 0d : clearance;
+
+                zones.add(new AxisAlignedBox(
+                        overlap.getXMin() + cx, overlap.getYMin() + cy, overlap.getZMin() + cz,
+                        overlap.getXMax() - cx, overlap.getYMax() - cy, overlap.getZMax() - cz
+                ));
+            }
+        }
+        return zones;
+    }
+
+    /**
+     * @return the point itself if it is free, otherwise the nearest free point clamped into a
+     *         safe zone, or null if there is none (e.g. the point is inside a keep-out zone)
+     */
+    private Point toFreeSpace(Point point) {
+        if (isPointFree(point)) {
+            return point;
+        }
+
+        Point nearest = null;
+        for (AxisAlignedBox zone : safeZones) {
+            Point clamped = clamp(point, zone.inflate(-NODE_OFFSET));
+            if (isPointFree(clamped)
+                    && (nearest == null || distanceBetween(point, clamped) < distanceBetween(point, nearest))) {
+                nearest = clamped;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Candidate waypoints: corners of every inflated keep-out zone and of every safe zone,
+     * pushed slightly outwards (resp. inwards) and kept only if they lie in free space.
+     * Keep-out corners that fall outside a safe zone are also clamped onto it, so gaps
+     * between a keep-out zone and a keep-in wall get a waypoint too.
+     */
+    private List<Point> buildGraphNodes() {
+        List<Point> nodes = new ArrayList<>();
+
+        for (AxisAlignedBox zone : keepOutZones) {
+            for (Point corner : zone.inflate(NODE_OFFSET).getCorners()) {
+                if (isPointFree(corner)) {
+                    nodes.add(corner);
+                    continue;
+                }
+
+                for (AxisAlignedBox safe : safeZones) {
+                    Point clamped = clamp(corner, safe.inflate(-NODE_OFFSET));
+                    if (isPointFree(clamped)) nodes.add(clamped);
+                }
+            }
+        }
+
+        for (AxisAlignedBox safe : safeZones) {
+            if (isPointFree(safe.getCenter())) nodes.add(safe.getCenter());
+            for (Point corner : safe.inflate(-NODE_OFFSET).getCorners()) {
+                if (isPointFree(corner)) nodes.add(corner);
+            }
+        }
+
+        return nodes;
+    }
+
+    private boolean isInsideKeepIn(Point point) {
+        for (AxisAlignedBox zone : keepInZones) {
+            if (zone.contains(point)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isPointFree(Point point) {
+        boolean inside = false;
+        for (AxisAlignedBox zone : safeZones) {
+            if (zone.contains(point)) {
+                inside = true;
+                break;
+            }
+        }
+        if (!inside) {
+            return false;
+        }
+
+        for (AxisAlignedBox zone : keepOutZones) {
+            if (zone.contains(point)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A segment is free if it does not pass through the interior of any inflated keep-out zone
+     * and the safe zones it passes through cover it end to end.
+     */
+    private boolean isSegmentFree(Point from, Point to) {
+        for (AxisAlignedBox zone : keepOutZones) {
+            double[] hit = zone.clipSegment(from, to);
+            if (hit != null && hit[1] - hit[0] > EPSILON) {
+                return false;
+            }
+        }
+
+        List<double[]> covered = new ArrayList<>();
+        for (AxisAlignedBox zone : safeZones) {
+            double[] inside = zone.clipSegment(from, to);
+            if (inside != null) covered.add(inside);
+        }
+
+        Collections.sort(covered, new Comparator<double[]>() {
+            @Override
+            public int compare(double[] a, double[] b) {
+                return Double.compare(a[0], b[0]);
+            }
+        });
+
+        double reached = 0d;
+        for (double[] interval : covered) {
+            if (interval[0] > reached + EPSILON) {
+                return false;
+            }
+            reached = Math.max(reached, interval[1]);
+        }
+        return reached >= 1d - EPSILON;
+    }
+
+    private String cacheKey(Point start, Point goal) {
+        return Math.round(start.getX() / cacheResolution) + ","
+                + Math.round(start.getY() / cacheResolution) + ","
+                + Math.round(start.getZ() / cacheResolution) + "->"
+                + Math.round(goal.getX() / cacheResolution) + ","
+                + Math.round(goal.getY() / cacheResolution) + ","
+                + Math.round(goal.getZ() / cacheResolution);
+    }
+
+    private static Point clamp(Point point, AxisAlignedBox box) {
+        return new Point(
+                Math.min(Math.max(point.getX(), box.getXMin()), box.getXMax()),
+                Math.min(Math.max(point.getY(), box.getYMin()), box.getYMax()),
+                Math.min(Math.max(point.getZ(), box.getZMin()), box.getZMax())
+        );
+    }
+
+    private static double distanceBetween(Point a, Point b) {
+        double dx = a.getX() - b.getX();
+        double dy = a.getY() - b.getY();
+        double dz = a.getZ() - b.getZ();
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
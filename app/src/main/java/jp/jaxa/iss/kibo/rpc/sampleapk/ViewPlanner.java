@@ -0,0 +1,443 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import gov.nasa.arc.astrobee.types.Point;
+import gov.nasa.arc.astrobee.types.Quaternion;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.AxisAlignedBox;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.AreaEnum;
+
+/**
+ * Plans the orientations needed to see a set of planes from a fixed position.
+ * Picks the smallest set of orientations that covers every plane and orders them so the total
+ * rotation, starting from the current orientation, is minimal.
+ * The NavCam looks along the robot's +X axis, with image columns along +Y and rows along +Z.
+ * When enabled, the DockCam looks the opposite way along -X, so one orientation can cover
+ * planes on both sides of the robot.
+ *
+ * @author Hashib Islam (#)
+ * @since 2025-04-24
+ */
+
+public class ViewPlanner {
+    private final double navHalfHorizontalFov;
+    private final double navHalfVerticalFov;
+    private final boolean dockCamEnabled;
+    private final double dockHalfHorizontalFov;
+    private final double dockHalfVerticalFov;
+
+    /**
+     * Plans for the NavCam only.
+     *
+     * @param horizontalFov horizontal field of view in radians
+     * @param verticalFov   vertical field of view in radians
+     * @param margin        fraction of the field of view planes must fit in (keeps them off the distorted border)
+     */
+    public ViewPlanner(double horizontalFov, double verticalFov, double margin) {
+        this.navHalfHorizontalFov = horizontalFov * margin / 2;
+        this.navHalfVerticalFov = verticalFov * margin / 2;
+        this.dockCamEnabled = false;
+        this.dockHalfHorizontalFov = 0d;
+        this.dockHalfVerticalFov = 0d;
+    }
+
+    /**
+     * Plans for the NavCam and the rear-facing DockCam together.
+     *
+     * @param navFov  {horizontal, vertical} NavCam field of view in radians
+     * @param dockFov {horizontal, vertical} DockCam field of view in radians
+     * @param margin  fraction of the field of view planes must fit in
+     */
+    public ViewPlanner(double[] navFov, double[] dockFov, double margin) {
+        this.navHalfHorizontalFov = navFov[0] * margin / 2;
+        this.navHalfVerticalFov = navFov[1] * margin / 2;
+        this.dockCamEnabled = true;
+        this.dockHalfHorizontalFov = dockFov[0] * margin / 2;
+        this.dockHalfVerticalFov = dockFov[1] * margin / 2;
+    }
+
+    /**
+     * Computes the views to capture from the given pose.
+     *
+     * @param position           where the robot stays while rotating
+     * @param currentOrientation the robot's current orientation, reused as a view if it already covers planes
+     * @param planes             the planes to cover, by area
+     * @return the views in capture order; planes that do not fit the field of view from here
+     *         get a view centered on them
+     */
+    public List<View> plan(Point position, Quaternion currentOrientation, Map<AreaEnum, AxisAlignedBox> planes) {
+        List<AreaEnum> areas = new ArrayList<>(planes.keySet());
+        if (areas.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+
+        if (currentOrientation != null) {
+            addCandidate(candidates, position, areas, planes, currentOrientation, -1, -1, true);
+        }
+
+        double[][] toPlane = new double[areas.size()][];
+        for (int i = 0; i < areas.size(); i++) {
+            toPlane[i] = directionTo(position, planes.get(areas.get(i)).getCenter());
+        }
+
+        // NavCam at each plane, each pair of planes and all planes together
+        double[] toAll = new double[3];
+        for (int i = 0; i < areas.size(); i++) {
+            addCandidate(candidates, position, areas, planes, toPlane[i], i, -1);
+            for (int j = i + 1; j < areas.size(); j++) {
+                addCandidate(candidates, position, areas, planes, add(toPlane[i], toPlane[j]), -1, -1);
+            }
+            toAll = add(toAll, toPlane[i]);
+        }
+        addCandidate(candidates, position, areas, planes, toAll, -1, -1);
+
+        // DockCam at each plane, and NavCam at one plane while the DockCam faces another
+        if (dockCamEnabled) {
+            for (int i = 0; i < areas.size(); i++) {
+                addCandidate(candidates, position, areas, planes, scale(toPlane[i], -1), -1, i);
+                for (int j = 0; j < areas.size(); j++) {
+                    if (i != j) {
+                        addCandidate(candidates, position, areas, planes, add(toPlane[i], scale(toPlane[j], -1)), -1, -1);
+                    }
+                }
+            }
+        }
+
+        int required = (1 << areas.size()) - 1;
+        List<Candidate> best = findMinimalCover(candidates, required, areas.size(), currentOrientation);
+        if (best == null) {
+            Log.e("VIEW_PLANNER", "No set of views covers all planes from " + position);
+            return Collections.emptyList();
+        }
+
+        // hand each plane to the first view that covers it
+        List<View> views = new ArrayList<>();
+        int assigned = 0;
+        for (Candidate candidate : best) {
+            List<AreaEnum> navAreas = new ArrayList<>();
+            List<AreaEnum> dockAreas = new ArrayList<>();
+            for (int bit = 0; bit < areas.size(); bit++) {
+                if ((assigned & (1 << bit)) != 0) {
+                    continue;
+                }
+                if ((candidate.navCoverage & (1 << bit)) != 0) {
+                    navAreas.add(areas.get(bit));
+                    assigned |= 1 << bit;
+                }
+                else if ((candidate.dockCoverage & (1 << bit)) != 0) {
+                    dockAreas.add(areas.get(bit));
+                    assigned |= 1 << bit;
+                }
+            }
+            views.add(new View(candidate.orientation, navAreas, dockAreas, candidate.current));
+        }
+
+        Log.d("VIEW_PLANNER", "Covering " + areas.size() + " planes with " + views.size() + " views: " + views);
+        return views;
+    }
+
+    /**
+     * Tries every combination of candidates in increasing size; among the smallest combinations that
+     * cover all planes, returns the one whose best visiting order has the least angular travel.
+     */
+    private List<Candidate> findMinimalCover(List<Candidate> candidates, int required, int maxSize, Quaternion start) {
+        for (int size = 1; size <= maxSize; size++) {
+            Candidate[] chosen = new Candidate[size];
+            Candidate[] best = new Candidate[size];
+            double[] bestCost = {Double.POSITIVE_INFINITY};
+
+            combine(candidates, 0, 0, chosen, required, start, best, bestCost);
+
+            if (bestCost[0] < Double.POSITIVE_INFINITY) {
+                List<Candidate> result = new ArrayList<>();
+                Collections.addAll(result, best);
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private void combine(List<Candidate> candidates, int from, int depth, Candidate[] chosen, int required,
+                         Quaternion start, Candidate[] best, double[] bestCost) {
+        if (depth == chosen.length) {
+            int covered = 0;
+            for (Candidate candidate : chosen) covered |= candidate.coverage();
+            if ((covered & required) == required) {
+                permute(chosen.clone(), 0, start, best, bestCost);
+            }
+            return;
+        }
+
+        for (int i = from; i <= candidates.size() - (chosen.length - depth); i++) {
+            chosen[depth] = candidates.get(i);
+            combine(candidates, i + 1, depth + 1, chosen, required, start, best, bestCost);
+        }
+    }
+
+    /**
+     * Finds the visiting order with the least total angular travel (brute force over permutations).
+     */
+    private void permute(Candidate[] order, int k, Quaternion start, Candidate[] best, double[] bestCost) {
+        if (k == order.length) {
+            double cost = 0d;
+            Quaternion previous = start;
+            for (Candidate candidate : order) {
+                if (previous != null) cost += angleBetween(previous, candidate.orientation);
+                previous = candidate.orientation;
+            }
+            if (cost < bestCost[0]) {
+                bestCost[0] = cost;
+                System.arraycopy(order, 0, best, 0, order.length);
+            }
+            return;
+        }
+
+        for (int i = k; i < order.length; i++) {
+            swap(order, k, i);
+            permute(order, k + 1, start, best, bestCost);
+            swap(order, k, i);
+        }
+    }
+
+    private void addCandidate(List<Candidate> candidates, Point position, List<AreaEnum> areas,
+                              Map<AreaEnum, AxisAlignedBox> planes, double[] direction,
+                              int navTarget, int dockTarget) {
+        if (norm(direction) < 1e-9) {
+            return;
+        }
+        addCandidate(candidates, position, areas, planes, lookAt(direction), navTarget, dockTarget, false);
+    }
+
+    /**
+     * @param navTarget  index of a plane the NavCam was aimed at, or -1
+     * @param dockTarget index of a plane the DockCam was aimed at, or -1
+     * @param current    true if this is the robot's current orientation
+     */
+    private void addCandidate(List<Candidate> candidates, Point position, List<AreaEnum> areas,
+                              Map<AreaEnum, AxisAlignedBox> planes, Quaternion orientation,
+                              int navTarget, int dockTarget, boolean current) {
+        int navCoverage = coverageOf(position, orientation, areas, planes, navTarget, false);
+        int dockCoverage = dockCamEnabled ? coverageOf(position, orientation, areas, planes, dockTarget, true) : 0;
+
+        if (navCoverage != 0 || dockCoverage != 0) {
+            candidates.add(new Candidate(orientation, navCoverage, dockCoverage, current));
+        }
+    }
+
+    /**
+     * @param target index of a plane the camera was aimed at; it counts as covered
+     *               even if it is larger than the field of view, or -1
+     * @param dockCam true to test the rear-facing DockCam instead of the NavCam
+     * @return bit mask of the planes whose corners are all inside the camera's field of view
+     */
+    private int coverageOf(Point position, Quaternion orientation, List<AreaEnum> areas,
+                           Map<AreaEnum, AxisAlignedBox> planes, int target, boolean dockCam) {
+        Quaternion inverse = new Quaternion(-orientation.getX(), -orientation.getY(), -orientation.getZ(),
+                orientation.getW());
+        double halfHorizontal = dockCam ? dockHalfHorizontalFov : navHalfHorizontalFov;
+        double halfVertical = dockCam ? dockHalfVerticalFov : navHalfVerticalFov;
+        int covered = 0;
+
+        for (int i = 0; i < areas.size(); i++) {
+            boolean inView = true;
+            for (Point corner : planes.get(areas.get(i)).getCorners()) {
+                double[] local = rotate(inverse, new double[]{
+                        corner.getX() - position.getX(),
+                        corner.getY() - position.getY(),
+                        corner.getZ() - position.getZ()
+                });
+
+                // the DockCam frame is the body frame turned 180 degrees about Z
+                double forward = dockCam ? -local[0] : local[0];
+                double sideways = dockCam ? -local[1] : local[1];
+
+                if (forward <= 0
+                        || Math.abs(Math.atan2(sideways, forward)) > halfHorizontal
+                        || Math.abs(Math.atan2(local[2], forward)) > halfVertical) {
+                    inView = false;
+                    break;
+                }
+            }
+
+            if (inView || i == target) {
+                covered |= 1 << i;
+            }
+        }
+        return covered;
+    }
+
+    /**
+     * Builds the orientation that points the robot's +X axis along the direction
+     * without rolling it (yaw about Z, then pitch about Y).
+     */
+    static Quaternion lookAt(double[] direction) {
+        double yaw = Math.atan2(direction[1], direction[0]);
+        double pitch = Math.atan2(-direction[2], Math.hypot(direction[0], direction[1]));
+
+        double cy = Math.cos(yaw / 2), sy = Math.sin(yaw / 2);
+        double cp = Math.cos(pitch / 2), sp = Math.sin(pitch / 2);
+
+        // q = qz(yaw) * qy(pitch)
+        return new Quaternion((float) (-sy * sp), (float) (cy * sp), (float) (sy * cp), (float) (cy * cp));
+    }
+
+    /**
+     * @return the rotation angle in radians between two orientations
+     */
+    static double angleBetween(Quaternion a, Quaternion b) {
+        double dot = a.getX() * b.getX() + a.getY() * b.getY() + a.getZ() * b.getZ() + a.getW() * b.getW();
+        double normA = Math.sqrt(a.getX() * a.getX() + a.getY() * a.getY() + a.getZ() * a.getZ() + a.getW() * a.getW());
+        double normB = Math.sqrt(b.getX() * b.getX() + b.getY() * b.getY() + b.getZ() * b.getZ() + b.getW() * b.getW());
+        return 2 * Math.acos(Math.min(1d, Math.abs(dot) / (normA * normB)));
+    }
+
+    /**
+     * Rotates a vector by a unit quaternion (v' = q v q*).
+     */
+    static double[] rotate(Quaternion q, double[] v) {
+        double qx = q.getX(), qy = q.getY(), qz = q.getZ(), qw = q.getW();
+
+        // t = 2 * (q.xyz x v)
+        double tx = 2 * (qy * v[2] - qz * v[1]);
+        double ty = 2 * (qz * v[0] - qx * v[2]);
+        double tz = 2 * (qx * v[1] - qy * v[0]);
+
+        // v' = v + w * t + q.xyz x t
+        return new double[]{
+                v[0] + qw * tx + (qy * tz - qz * ty),
+                v[1] + qw * ty + (qz * tx - qx * tz),
+                v[2] + qw * tz + (qx * ty - qy * tx)
+        };
+    }
+
+    private static double[] directionTo(Point from, Point to) {
+        double[] direction = {to.getX() - from.getX(), to.getY() - from.getY(), to.getZ() - from.getZ()};
+        double length = norm(direction);
+        if (length > 0) {
+            for (int i = 0; i < 3; i++) direction[i] /= length;
+        }
+        return direction;
+    }
+
+    private static double[] add(double[] a, double[] b) {
+        return new double[]{a[0] + b[0], a[1] + b[1], a[2] + b[2]};
+    }
+
+    private static double[] scale(double[] v, double factor) {
+        return new double[]{v[0] * factor, v[1] * factor, v[2] * factor};
+    }
+
+    private static double norm(double[] v) {
+        return Math.sqrt(v[0] * v[0] + v[1] * v[1] + v[2] * v[2]);
+    }
+
+    private static void swap(Candidate[] array, int i, int j) {
+        Candidate tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+
+    /**
+     * A candidate orientation and the planes each camera sees from it.
+     */
+    private static class Candidate {
+        private final Quaternion orientation;
+        private final int navCoverage;
+        private final int dockCoverage;
+        private final boolean current;
+
+        Candidate(Quaternion orientation, int navCoverage, int dockCoverage, boolean current) {
+            this.orientation = orientation;
+            this.navCoverage = navCoverage;
+            this.dockCoverage = dockCoverage;
+            this.current = current;
+        }
+
+        int coverage() {
+            return navCoverage | dockCoverage;
+        }
+    }
+
+    /**
+     * One planned orientation and the planes each camera covers from it.
+     */
+    public static class View {
+        private final Quaternion orientation;
+        private final List<AreaEnum> navCamAreas;
+        private final List<AreaEnum> dockCamAreas;
+        private final boolean currentOrientation;
+
+        View(Quaternion orientation, List<AreaEnum> navCamAreas, List<AreaEnum> dockCamAreas,
+             boolean currentOrientation) {
+            this.orientation = orientation;
+            this.navCamAreas = Collections.unmodifiableList(navCamAreas);
+            this.dockCamAreas = Collections.unmodifiableList(dockCamAreas);
+            this.currentOrientation = currentOrientation;
+        }
+
+        public Quaternion getOrientation() {
+            return orientation;
+        }
+
+        /**
+         * @return the planes assigned to the NavCam at this orientation
+         */
+        public List<AreaEnum> getCoveredAreas() {
+            return navCamAreas;
+        }
+
+        /**
+         * @return the planes assigned to the DockCam at this orientation (empty unless the DockCam is enabled)
+         */
+        public List<AreaEnum> getDockCamAreas() {
+            return dockCamAreas;
+        }
+
+        /**
+         * @return true if this is the orientation the robot already had, so no rotation is needed
+         */
+        public boolean isCurrentOrientation() {
+            return currentOrientation;
+        }
+
+        /**
+         * @return label made of the NavCam areas, e.g. "AREA_1+AREA_2"
+         */
+        public String getLabel() {
+            return join(navCamAreas);
+        }
+
+        /**
+         * @return label made of the DockCam areas
+         */
+        public String getDockCamLabel() {
+            return join(dockCamAreas);
+        }
+
+        private static String join(List<AreaEnum> areas) {
+            StringBuilder label = new StringBuilder();
+            for (AreaEnum area : areas) {
+                if (label.length() > 0) label.append('+');
+                label.append(area);
+            }
+            return label.toString();
+        }
+
+        @Override
+        public String toString() {
+            return "View{" +
+                    "nav=" + getLabel() +
+                    ", dock=" + getDockCamLabel() +
+                    ", orientation=" + orientation +
+                    ", current=" + currentOrientation +
+                    '}';
+        }
+    }
+}
@@ -3,6 +3,7 @@ package jp.jaxa.iss.kibo.rpc.sampleapk;
 import android.util.Log;
 
 import org.opencv.aruco.Aruco;
+import org.opencv.aruco.DetectorParameters;
 import org.opencv.aruco.Dictionary;
 import org.opencv.calib3d.Calib3d;
 import org.opencv.core.CvType;
@@ -10,12 +11,19 @@ import org.opencv.core.Mat;
 import org.opencv.core.MatOfDouble;
 import org.opencv.core.Rect;
 import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import jp.jaxa.iss.kibo.rpc.api.KiboRpcApi;
 import jp.jaxa.iss.kibo.rpc.sampleapk.common.Constants;
 import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.AreaEnum;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.CameraEnum;
 
 /**
  * @author Hashib Islam (#)
@@ -25,40 +33,222 @@ import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.AreaEnum;
 public class VisionService {
     private final KiboRpcApi api;
     private final MovementService movementService;
+    private final MissionScheduler scheduler;
 
-    public VisionService(KiboRpcApi api, MovementService movementService) {
+    // per-camera frame fingerprints, intrinsics and undistortion maps; the map itself is never modified,
+    // and captures of one camera are serialized by its capture lock
+    private final Map<CameraEnum, CameraState> cameraStates = new EnumMap<>(CameraEnum.class);
+
+    // created once and reused by every detection
+    private Dictionary dictionary;
+    private DetectorParameters permissiveParameters;
+
+    public VisionService(KiboRpcApi api, MovementService movementService, MissionScheduler scheduler) {
         this.api = api;
         this.movementService = movementService;
+        this.scheduler = scheduler;
+
+        for (CameraEnum camera : CameraEnum.values()) {
+            cameraStates.put(camera, new CameraState());
+        }
     }
 
     /**
-     * Attempts to retrieve a Mat image from the NavCam using getMatNavCam().
-     * Retries up to MAX_RETRIES times with a delay between attempts.
+     * Attempts to retrieve a fresh Mat image from the NavCam using getMatNavCam().
+     * Retries up to the scheduler's retry limit with a delay between attempts.
      *
      * @return Mat image of NavCam (1280x960, CV_8UC1), or null if all attempts fail.
      */
     public Mat getMatNavCamImage() {
-        Log.d("NAV_CAM", "Attempting to take Nav cam image");
+        return getMatCameraImage(CameraEnum.NAV_CAM);
+    }
 
-        for (int attempt = 1; attempt <= Constants.MAX_RETRIES; attempt++) {
-            movementService.wait(Constants.CAM_STABILIZATION_WAIT_MS);
+    /**
+     * Attempts to retrieve a fresh Mat image from the given camera.
+     * Retries up to the scheduler's retry limit with a delay between attempts.
+     * Safe to call from several threads: captures of the same camera run one at a time, and a capture
+     * whose thread is interrupted stops polling and returns null without touching the camera's state.
+     *
+     * @param camera the camera to read
+     * @return Mat image of the camera (1280x960, CV_8UC1), or null if all attempts fail or it was interrupted.
+     */
+    public Mat getMatCameraImage(CameraEnum camera) {
+        Log.d(camera.name(), "Attempting to take " + camera + " image");
 
-            Mat mat = api.getMatNavCam();
+        CameraState state = cameraStates.get(camera);
+        try {
+            // a capture abandoned after a timeout may still be winding down
+            state.captureLock.lockInterruptibly();
+        }
+        catch (InterruptedException e) {
+            Log.w(camera.name(), camera + " capture cancelled before it started");
+            Thread.currentThread().interrupt();
+            return null;
+        }
 
-            if (mat != null && !mat.empty()) {
-                return mat;
-            }
+        try {
+            for (int attempt = 1; attempt <= scheduler.getMaxRetries(); attempt++) {
+                Mat mat = waitForFreshFrame(camera);
 
-            Log.d("NAV_CAM","NavCam image fetch failed (attempt " + attempt + "). Retrying...");
+                if (mat != null && !mat.empty()) {
+                    return mat;
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    Log.w(camera.name(), camera + " capture cancelled");
+                    return null;
+                }
 
-            movementService.wait(Constants.RETRY_WAIT_MS);
+                Log.d(camera.name(), camera + " image fetch failed (attempt " + attempt + "). Retrying...");
+
+                movementService.wait(scheduler.scaleWait(Constants.RETRY_WAIT_MS));
+            }
+        }
+        finally {
+            state.captureLock.unlock();
         }
 
-        Log.d("NAV_CAM","Failed to take NavCam image");
+        Log.d(camera.name(), "Failed to take " + camera + " image");
 
         return null;
     }
 
+    /**
+     * Returns the next camera frame that reflects the current pose.
+     * Without a move since the last capture the first frame is returned right away. After a move,
+     * a frame is accepted once it differs from the frame of the previous capture and the grab after it
+     * shows the same view, i.e. the camera has left the old view and stopped changing. Gives up after
+     * FRAME_MAX_GRABS grabs, FRAME_POLL_INTERVAL_MS apart (shortened by the scheduler when time is
+     * short), and returns the latest frame seen.
+     * Must be called with the camera's capture lock held.
+     *
+     * @return the first settled frame, the latest frame when the grabs run out, or null if no frame
+     *         was received or the thread was interrupted
+     */
+    private Mat waitForFreshFrame(CameraEnum camera) {
+        CameraState state = cameraStates.get(camera);
+        long moves = movementService.getMoveCount();
+
+        // the view can only have changed if the robot moved since the last capture
+        boolean moved = moves != state.movesAtLastCapture;
+
+        long start = System.currentTimeMillis();
+        Mat latest = null;
+        long latestHash = 0L;
+        boolean fresh = false;
+
+        for (int grab = 1; grab <= Constants.FRAME_MAX_GRABS && !Thread.currentThread().isInterrupted(); grab++) {
+            if (grab > 1) {
+                movementService.wait(scheduler.scaleWait(Constants.FRAME_POLL_INTERVAL_MS));
+            }
+
+            Mat mat = fetchFrame(camera);
+            if (mat == null || mat.empty()) {
+                continue;
+            }
+
+            long hash = computeFrameHash(mat);
+            state.lastFrameTimeMs = System.currentTimeMillis();
+
+            boolean settled = latest != null
+                    && Long.bitCount(hash ^ latestHash) < Constants.FRAME_HASH_MIN_DISTANCE;
+            boolean changed = !state.hasReferenceHash
+                    || Long.bitCount(hash ^ state.referenceHash) >= Constants.FRAME_HASH_MIN_DISTANCE;
+
+            if (latest != null) latest.release();
+            latest = mat;
+            latestHash = hash;
+
+            if (!moved || (settled && changed)) {
+                fresh = true;
+                break;
+            }
+        }
+
+        // cancelled: the caller is gone, so keep the reference for the next capture
+        if (Thread.currentThread().isInterrupted()) {
+            if (latest != null) latest.release();
+            return null;
+        }
+
+        if (latest == null) {
+            return null;
+        }
+
+        if (!fresh) {
+            Log.w(camera.name(), "View did not settle within " + Constants.FRAME_MAX_GRABS + " grabs; using latest");
+        }
+        else if (moved) {
+            Log.d(camera.name(), "Settled frame after " + (System.currentTimeMillis() - start) + "ms");
+        }
+
+        state.referenceHash = latestHash;
+        state.hasReferenceHash = true;
+        state.movesAtLastCapture = moves;
+
+        return latest;
+    }
+
+    /**
+     * On the robot (not in the simulator) every non-null getMatNavCam()/getMatDockCam() call also
+     * saves a snapshot JPEG, which counts towards saveMatImage's 50-image limit and costs an encode,
+     * and flashes the signal lights; keep the number of grabs per capture small and fixed.
+     */
+    private Mat fetchFrame(CameraEnum camera) {
+        return camera == CameraEnum.DOCK_CAM ? api.getMatDockCam() : api.getMatNavCam();
+    }
+
+    /**
+     * @return wall-clock time at which the last frame returned by getMatNavCamImage() was received
+     */
+    public long getLastFrameTimeMs() {
+        return getLastFrameTimeMs(CameraEnum.NAV_CAM);
+    }
+
+    /**
+     * @return wall-clock time at which the last frame of the given camera was received
+     */
+    public long getLastFrameTimeMs(CameraEnum camera) {
+        return cameraStates.get(camera).lastFrameTimeMs;
+    }
+
+    /**
+     * Computes a 64-bit average hash of the frame: the image is shrunk to 8x8,
+     * and each bit is set when that cell is brighter than the mean of all cells.
+     * Identical frames hash equal, while sensor noise flips only a few bits.
+     *
+     * @param frame a single-channel image
+     * @return the perceptual hash of the frame
+     */
+    private long computeFrameHash(Mat frame) {
+        Mat small = new Mat();
+        byte[] cells = new byte[Constants.FRAME_HASH_SIZE * Constants.FRAME_HASH_SIZE];
+
+        try {
+            Imgproc.resize(frame, small,
+                    new Size(Constants.FRAME_HASH_SIZE, Constants.FRAME_HASH_SIZE),
+                    0, 0, Imgproc.INTER_AREA);
+            small.get(0, 0, cells);
+        }
+        finally {
+            small.release();
+        }
+
+        int sum = 0;
+        for (byte cell : cells) {
+            sum += cell & 0xFF;
+        }
+        int mean = sum / cells.length;
+
+        long hash = 0L;
+        for (int i = 0; i < cells.length; i++) {
+            if ((cells[i] & 0xFF) > mean) {
+                hash |= 1L << i;
+            }
+        }
+
+        return hash;
+    }
+
     /**
      * Detects ArUco markers in the given image using a predefined dictionary.
      * The image is undistorted before marker detection using camera intrinsics.
@@ -72,59 +262,282 @@ public class VisionService {
                           List<Mat> corners,
                           Mat ids,
                           AreaEnum area)
+    {
+        readArTag(sourceImage, corners, ids, area, CameraEnum.NAV_CAM);
+    }
+
+    /**
+     * Same as {@link #readArTag(Mat, List, Mat, AreaEnum)}, undistorting with the intrinsics
+     * of the camera the image came from.
+     *
+     * @param camera the camera that captured sourceImage
+     */
+    public void readArTag(Mat sourceImage,
+                          List<Mat> corners,
+                          Mat ids,
+                          AreaEnum area,
+                          CameraEnum camera)
+    {
+        readArTag(sourceImage, corners, ids, area, camera, false);
+    }
+
+    /**
+     * Same as {@link #readArTag(Mat, List, Mat, AreaEnum, CameraEnum)}, optionally with detector
+     * parameters that also accept smaller and less contrasted markers, at the cost of a slower
+     * and less selective detection. Meant for a second pass over frames that showed no markers.
+     *
+     * @param permissive true to use the permissive detector parameters
+     */
+    public void readArTag(Mat sourceImage,
+                          List<Mat> corners,
+                          Mat ids,
+                          AreaEnum area,
+                          CameraEnum camera,
+                          boolean permissive)
+    {
+        readArTag(sourceImage, corners, ids, area, camera, permissive, scheduler.isDebugSaveEnabled());
+    }
+
+    /**
+     * @param debugSave whether to save the undistorted and annotated images
+     */
+    private void readArTag(Mat sourceImage,
+                           List<Mat> corners,
+                           Mat ids,
+                           AreaEnum area,
+                           CameraEnum camera,
+                           boolean permissive,
+                           boolean debugSave)
     {
         if (sourceImage == null || sourceImage.empty()) {
             Log.w("AR_TAG", "Empty sourceImage for " + area + "; skipping detect");
             return;
         }
 
-        Dictionary dict = Aruco.getPredefinedDictionary(Aruco.DICT_5X5_250);
+        Dictionary dict = getDictionary();
         Mat undistorted = null;
         try {
-            undistorted = undistortImage(sourceImage, area);
+            undistorted = undistortImage(sourceImage, area, camera, debugSave);
             if (undistorted == null || undistorted.empty()) {
                 Log.w("AR_TAG", "Undistorted image empty for " + area);
                 return;
             }
 
-            Aruco.detectMarkers(undistorted, dict, corners, ids);
-        }
-        catch (Exception e) {
-            Log.e("AR_TAG", "detectMarkers failed for " + area, e);
+            try {
+                if (permissive) {
+                    Aruco.detectMarkers(undistorted, dict, corners, ids, getPermissiveParameters());
+                } else {
+                    Aruco.detectMarkers(undistorted, dict, corners, ids);
+                }
+            }
+            catch (Exception e) {
+                Log.e("AR_TAG", "detectMarkers failed for " + area, e);
+            }
+
+            if (debugSave) {
+                try {
+                    Mat debug = undistorted.clone();
+                    if (ids.total() > 0 && !corners.isEmpty()) {
+                        Aruco.drawDetectedMarkers(debug, corners, ids, new Scalar(0, 255, 0));
+                    }
+                    api.saveMatImage(debug,
+                            "AR_IMAGE_" + cameraPrefix(camera) + area + "_" + System.currentTimeMillis() + ".jpg");
+                    debug.release();
+                }
+                catch (Exception e) {
+                    Log.e("AR_TAG", "drawDetectedMarkers or save failed for " + area, e);
+                }
+
+                if (ids.total() > 0) {
+                    Log.d("AR_TAG", "Detected ArUco IDs: " + ids.dump());
+                } else {
+                    Log.d("AR_TAG", "No ArUco markers detected in " + area);
+                }
+            }
         }
         finally {
-            if (undistorted != null) undistorted.release();
+            // undistortImage hands back the caller's image on failure, which must not be released here;
+            // release only after the debug save, which still draws on the undistorted image
+            if (undistorted != null && undistorted != sourceImage) undistorted.release();
         }
+    }
+
+    /**
+     * Runs a synthetic marker frame through readArTag as every camera, with the default and the
+     * permissive detector parameters, so that OpenCV natives, the ArUco dictionary and detector parameters,
+     * each camera's intrinsics and undistortion maps and the JIT are warm before the first real area is
+     * processed. Debug saves are suppressed, since saveMatImage accepts only a limited number of images.
+     * Failures are logged and ignored.
+     *
+     * @return total time spent warming up in milliseconds
+     */
+    public long warmUp() {
+        long start = System.currentTimeMillis();
+
+        for (int iteration = 1; iteration <= Constants.WARM_UP_ITERATIONS; iteration++) {
+            long iterationStart = System.currentTimeMillis();
+            Mat frame = null;
+            long detected = 0L;
 
-        if (Constants.DEBUG_MODE) {
             try {
-                Mat debug = undistorted.clone();
-                if (ids.total() > 0 && !corners.isEmpty()) {
-                    Aruco.drawDetectedMarkers(debug, corners, ids, new Scalar(0, 255, 0));
+                frame = createWarmUpFrame();
+                computeFrameHash(frame);
+
+                for (CameraEnum camera : CameraEnum.values()) {
+                    for (boolean permissive : new boolean[]{false, true}) {
+                        Mat ids = new Mat();
+                        List<Mat> corners = new ArrayList<>();
+                        try {
+                            readArTag(frame, corners, ids, null, camera, permissive, false);
+                            detected += ids.total();
+                        }
+                        finally {
+                            ids.release();
+                            for (Mat corner : corners) corner.release();
+                        }
+                    }
                 }
-                api.saveMatImage(debug,
-                        "AR_IMAGE_" + area + "_" + System.currentTimeMillis() + ".jpg");
-                debug.release();
+
+                Log.d("WARM_UP", "Iteration " + iteration + " took "
+                        + (System.currentTimeMillis() - iterationStart) + "ms, detected " + detected + " markers");
             }
             catch (Exception e) {
-                Log.e("AR_TAG", "drawDetectedMarkers or save failed for " + area, e);
+                Log.e("WARM_UP", "Warm-up iteration " + iteration + " failed", e);
+            }
+            finally {
+                if (frame != null) frame.release();
             }
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        Log.d("WARM_UP", "Vision pipeline warm-up took " + elapsed + "ms");
+
+        return elapsed;
+    }
+
+    /**
+     * Builds a blank NavCam-sized frame with one marker from the mission dictionary drawn in the middle,
+     * so detection runs all the way through corner refinement.
+     */
+    private Mat createWarmUpFrame() {
+        Mat frame = new Mat(Constants.NAV_CAM_HEIGHT, Constants.NAV_CAM_WIDTH, CvType.CV_8UC1, new Scalar(255));
+        Mat marker = new Mat();
+
+        try {
+            Aruco.drawMarker(getDictionary(), 0, Constants.WARM_UP_MARKER_SIZE_PX, marker);
+
+            int x = (Constants.NAV_CAM_WIDTH - Constants.WARM_UP_MARKER_SIZE_PX) / 2;
+            int y = (Constants.NAV_CAM_HEIGHT - Constants.WARM_UP_MARKER_SIZE_PX) / 2;
+            Mat roi = frame.submat(new Rect(x, y, Constants.WARM_UP_MARKER_SIZE_PX, Constants.WARM_UP_MARKER_SIZE_PX));
+            marker.copyTo(roi);
+            roi.release();
+        }
+        finally {
+            marker.release();
+        }
 
-            if (ids.total() > 0) {
-                Log.d("AR_TAG", "Detected ArUco IDs: " + ids.dump());
-            } else {
-                Log.d("AR_TAG", "No ArUco markers detected in " + area);
+        return frame;
+    }
+
+    /**
+     * Computes a camera's field of view from the focal lengths in its intrinsics,
+     * falling back to NAV_CAM_FALLBACK_FOCAL_PX when they are unavailable.
+     * Both cameras share the NavCam resolution.
+     *
+     * @return {horizontal, vertical} field of view in radians
+     */
+    public double[] getFieldOfView(CameraEnum camera) {
+        double fx = Constants.NAV_CAM_FALLBACK_FOCAL_PX;
+        double fy = Constants.NAV_CAM_FALLBACK_FOCAL_PX;
+
+        double[][] intrinsics = getIntrinsics(camera);
+        if (intrinsics != null && intrinsics.length > 0
+                && intrinsics[0] != null && intrinsics[0].length >= 9
+                && intrinsics[0][0] > 0 && intrinsics[0][4] > 0) {
+            fx = intrinsics[0][0];
+            fy = intrinsics[0][4];
+        }
+        else {
+            Log.w(camera.name(), "Intrinsics unavailable, using fallback focal length for field of view");
+        }
+
+        return new double[]{
+                2 * Math.atan(Constants.NAV_CAM_WIDTH / (2 * fx)),
+                2 * Math.atan(Constants.NAV_CAM_HEIGHT / (2 * fy))
+        };
+    }
+
+    /**
+     * @return the camera matrix (fx, 0, cx, 0, fy, cy, 0, 0, 1) that detected marker corners refer to;
+     *         undistorted images keep the original matrix. Null if the intrinsics are unavailable.
+     */
+    public double[] getCameraMatrix(CameraEnum camera) {
+        double[][] intrinsics = getIntrinsics(camera);
+        if (intrinsics == null || intrinsics.length == 0 || intrinsics[0] == null || intrinsics[0].length < 9) {
+            return null;
+        }
+        return intrinsics[0].clone();
+    }
+
+    /**
+     * @return the camera's intrinsics, fetched from the API once and cached
+     */
+    private double[][] getIntrinsics(CameraEnum camera) {
+        CameraState state = cameraStates.get(camera);
+        synchronized (state) {
+            if (state.intrinsics == null) {
+                state.intrinsics = camera == CameraEnum.DOCK_CAM
+                        ? api.getDockCamIntrinsics()
+                        : api.getNavCamIntrinsics();
             }
+            return state.intrinsics;
+        }
+    }
+
+    private static String cameraPrefix(CameraEnum camera) {
+        return camera == CameraEnum.NAV_CAM ? "" : camera + "_";
+    }
+
+    private synchronized DetectorParameters getPermissiveParameters() {
+        if (permissiveParameters == null) {
+            permissiveParameters = DetectorParameters.create();
+            permissiveParameters.set_adaptiveThreshWinSizeMax(Constants.RETRY_DETECTION_THRESH_WIN_SIZE_MAX);
+            permissiveParameters.set_adaptiveThreshWinSizeStep(Constants.RETRY_DETECTION_THRESH_WIN_SIZE_STEP);
+            permissiveParameters.set_minMarkerPerimeterRate(Constants.RETRY_DETECTION_MIN_MARKER_PERIMETER_RATE);
+        }
+        return permissiveParameters;
+    }
+
+    /**
+     * @return how many times longer a permissive detection takes than a default one, estimated from the
+     * number of adaptive threshold windows each parameter set tries
+     */
+    public double getPermissiveDetectionCostFactor() {
+        DetectorParameters defaults = DetectorParameters.create();
+        DetectorParameters permissive = getPermissiveParameters();
+        return (double) countThresholdWindows(permissive) / countThresholdWindows(defaults);
+    }
+
+    private static int countThresholdWindows(DetectorParameters parameters) {
+        int step = Math.max(1, parameters.get_adaptiveThreshWinSizeStep());
+        int range = parameters.get_adaptiveThreshWinSizeMax() - parameters.get_adaptiveThreshWinSizeMin();
+        return Math.max(0, range) / step + 1;
+    }
+
+    private synchronized Dictionary getDictionary() {
+        if (dictionary == null) {
+            dictionary = Aruco.getPredefinedDictionary(Aruco.DICT_5X5_250);
         }
+        return dictionary;
     }
 
     /**
-     * Undistorts the given source image using navigation camera intrinsics.
+     * Undistorts the given source image using the intrinsics of the camera that captured it.
      *
      * @param sourceImage the distorted input image (Mat)
      * @return undistorted output image (Mat), or the original image on failure
      */
-    private Mat undistortImage(final Mat sourceImage, AreaEnum area) {
+    private Mat undistortImage(final Mat sourceImage, AreaEnum area, CameraEnum camera, boolean debugSave) {
         Log.d("UNDISTORT", "Starting image undistortion");
 
         // Validate input image
@@ -133,22 +546,84 @@ public class VisionService {
             return sourceImage;
         }
 
-        // Retrieve camera intrinsics: [0] = camera matrix elements, [1] = distortion coefficients
-        double[][] navCamIntrinsics = api.getNavCamIntrinsics();
-        if (navCamIntrinsics == null || navCamIntrinsics.length < 2) {
-            Log.e("UNDISTORT", "Invalid intrinsics data received");
+        if (!ensureUndistortMaps(camera, sourceImage.size())) {
+            return sourceImage;
+        }
+
+        CameraState state = cameraStates.get(camera);
+
+        Mat undistorted = new Mat();
+
+        try {
+            // Undistort the image with the cached rectification maps
+            Imgproc.remap(sourceImage, undistorted, state.undistortMap1, state.undistortMap2, Imgproc.INTER_LINEAR);
+            Log.d("UNDISTORT", "Image undistorted successfully");
+
+            if(debugSave) {
+                api.saveMatImage(undistorted, "UNDISTORATED_IMG_" + cameraPrefix(camera) + area + "_" + System.currentTimeMillis() + ".jpg");
+            }
+        } catch (Exception e) {
+            Log.e("UNDISTORT", "Error during undistortion, returning original image", e);
             return sourceImage;
         }
 
+        return undistorted;
+    }
+
+    /**
+     * Builds the undistortion maps from the camera's intrinsics for the given image size,
+     * unless maps for that size already exist. Equivalent to what Calib3d.undistort
+     * computes internally on every call.
+     *
+     * @param camera    the camera the images come from
+     * @param imageSize the size of the images that will be undistorted
+     * @return true if usable maps are available, false if the intrinsics are invalid
+     */
+    private boolean ensureUndistortMaps(CameraEnum camera, Size imageSize) {
+        CameraState state = cameraStates.get(camera);
+        synchronized (state) {
+            if (state.undistortMapSize != null
+                    && state.undistortMapSize.width == imageSize.width
+                    && state.undistortMapSize.height == imageSize.height) {
+                return true;
+            }
+
+            Mat[] maps = buildUndistortMaps(getIntrinsics(camera), imageSize);
+            if (maps == null) {
+                return false;
+            }
+
+            if (state.undistortMap1 != null) state.undistortMap1.release();
+            if (state.undistortMap2 != null) state.undistortMap2.release();
+
+            state.undistortMap1 = maps[0];
+            state.undistortMap2 = maps[1];
+            state.undistortMapSize = imageSize;
+        }
+
+        Log.d("UNDISTORT", "Built " + camera + " undistortion maps for " + imageSize);
+        return true;
+    }
+
+    /**
+     * @param intrinsics [0] = camera matrix elements, [1] = distortion coefficients
+     * @return {map1, map2}, or null if the intrinsics are invalid
+     */
+    private Mat[] buildUndistortMaps(double[][] intrinsics, Size imageSize) {
+        if (intrinsics == null || intrinsics.length < 2) {
+            Log.e("UNDISTORT", "Invalid intrinsics data received");
+            return null;
+        }
+
         // Flattened camera matrix (row-major): fx, 0, cx, 0, fy, cy, 0, 0, 1
-        double[] cameraData = navCamIntrinsics[0];
+        double[] cameraData = intrinsics[0];
         if (cameraData == null || cameraData.length < 9) {
             Log.e("UNDISTORT", "Camera matrix must have 9 elements");
-            return sourceImage;
+            return null;
         }
 
         // Distortion coefficients: k1, k2, p1, p2, k3 (or more)
-        double[] distCoeffsArr = navCamIntrinsics[1];
+        double[] distCoeffsArr = intrinsics[1];
         if (distCoeffsArr == null || distCoeffsArr.length < 5) {
             Log.w("UNDISTORT", "Distortion array has fewer than 5 coefficients");
         }
@@ -159,22 +634,23 @@ public class VisionService {
 
         MatOfDouble distCoeffs = new MatOfDouble(distCoeffsArr);
 
-        Mat undistorted = new Mat();
+        Mat map1 = new Mat();
+        Mat map2 = new Mat();
 
         try {
-            // Undistort the image using Calib3d
-            Calib3d.undistort(sourceImage, undistorted, cameraMatrix, distCoeffs);
-            Log.d("UNDISTORT", "Image undistorted successfully");
-
-            if(Constants.DEBUG_MODE) {
-                api.saveMatImage(undistorted, "UNDISTORATED_IMG_" + area + "_" + System.currentTimeMillis() + ".jpg");
-            }
+            Calib3d.initUndistortRectifyMap(cameraMatrix, distCoeffs, new Mat(), cameraMatrix,
+                    imageSize, CvType.CV_16SC2, map1, map2);
         } catch (Exception e) {
-            Log.e("UNDISTORT", "Error during undistortion, returning original image", e);
-            return sourceImage;
+            Log.e("UNDISTORT", "Failed to build undistortion maps", e);
+            map1.release();
+            map2.release();
+            return null;
+        } finally {
+            cameraMatrix.release();
+            distCoeffs.release();
         }
 
-        return undistorted;
+        return new Mat[]{map1, map2};
     }
 
     /**
@@ -204,4 +680,20 @@ public class VisionService {
 
         return new Mat(sourceImage, roi);
     }
+
+    /**
+     * Mutable per-camera state. The freshness fields are guarded by captureLock.
+     */
+    private static class CameraState {
+        private final ReentrantLock captureLock = new ReentrantLock();
+        // fingerprint of the frame returned by the previous capture
+        private long referenceHash;
+        private boolean hasReferenceHash = false;
+        private long movesAtLastCapture = 0L;
+        private volatile long lastFrameTimeMs = 0L;
+        private double[][] intrinsics;
+        private Mat undistortMap1;
+        private Mat undistortMap2;
+        private Size undistortMapSize;
+    }
 }
@@ -8,109 +8,163 @@ import gov.nasa.arc.astrobee.types.Point;
 import gov.nasa.arc.astrobee.types.Quaternion;
 import jp.jaxa.iss.kibo.rpc.sampleapk.common.ArTagDetectionData;
 import jp.jaxa.iss.kibo.rpc.sampleapk.common.Constants;
-import jp.jaxa.iss.kibo.rpc.sampleapk.common.QuaternionPoint;
 import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.AreaEnum;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.MissionPhase;
+import jp.jaxa.iss.kibo.rpc.sampleapk.recorder.FlightRecorder;
 
-import org.opencv.core.Mat;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Class meant to handle commands from the Ground Data System and execute them in Astrobee.
  */
 
 public class YourService extends KiboRpcService {
+    private MissionScheduler scheduler;
     private MovementService movementService;
     private VisionService visionService;
+    private DualCameraCaptureService dualCameraCaptureService;
     private AreaProcessor areaProcessor;
+    private FlightRecorder flightRecorder;
 
     @Override
     protected void runPlan1(){
-        movementService = new MovementService(api);
-        visionService = new VisionService(api, movementService);
-        areaProcessor = new AreaProcessor(api, movementService, visionService);
-
-        // The mission starts
-        api.startMission();
-
-        /* **************************************************** */
-        /* Let's move to each area and recognize the items. */
-        /* **************************************************** */
-
-        // Move Astrobee from KIZ2 into KIZ1
-        Log.d("MISSION_START", "Moving out of KIZ2");
-        Point kiz1EntryPoint = new Point(10.292d, -10d, 4.6d);
-        Quaternion kiz1EntryQuaternion = new Quaternion(0f, 0f, -0.707f, 0.707f);
-        movementService.moveToTargetPosition(kiz1EntryPoint, kiz1EntryQuaternion);
-
-        Point kiz1Point = new Point(10.7d, -10d, 4.6d);
-        Quaternion kiz1Quaternion = new Quaternion(0f, 0f, -0.707f, 0.707f);
-        movementService.moveToTargetPosition(kiz1Point, kiz1Quaternion);
-
-
-        // ArTag data per area
-        Map<AreaEnum, ArTagDetectionData> detections = new HashMap<>();
-
-        // move to the areas and collect ar tag data
-        for (AreaEnum area : Constants.AREA_LIST) {
-            try {
-                // look up the coordinates
-                QuaternionPoint areaCoordinates = Constants.AREA_COORDINATES_MAP.get(area);
-
-                // process search areas (move, capture, undistort)
-                Mat searchImage = areaProcessor.processSearchArea(
-                        area,
-                        areaCoordinates.getPoint(),
-                        areaCoordinates.getQuaternion()
-                );
-
-                // read ar tags
-                List<Mat> corners = new ArrayList<>();
-                Mat ids = new Mat();
-                visionService.readArTag(searchImage, corners, ids, area);
-
-                // store ar tag data
-                if (ids.total() > 0) {
-                    detections.put(area, new ArTagDetectionData(corners, ids));
+        scheduler = new MissionScheduler();
+        movementService = new MovementService(api, scheduler);
+        visionService = new VisionService(api, movementService, scheduler);
+        flightRecorder = Constants.DEBUG_MODE ? openFlightRecorder() : null;
+        dualCameraCaptureService = new DualCameraCaptureService(visionService);
+        areaProcessor = new AreaProcessor(api, movementService, visionService, scheduler, flightRecorder,
+                dualCameraCaptureService);
+
+        try {
+            // Load OpenCV and build detection state before the mission clock starts
+            visionService.warmUp();
+
+            // The mission starts
+            api.startMission();
+            scheduler.start();
+
+            /* **************************************************** */
+            /* Let's move to each area and recognize the items. */
+            /* **************************************************** */
+
+            // Areas are reached via planned waypoints, entering KIZ1 through its overlap with KIZ2
+
+            // ArTag data per area
+            Map<AreaEnum, ArTagDetectionData> detections = new EnumMap<>(AreaEnum.class);
+            Set<AreaEnum> pending = EnumSet.copyOf(Constants.AREA_LIST);
+
+            // move to the areas and collect ar tag data; nearby planes are searched from the same stop
+            for (AreaEnum area : Constants.AREA_LIST) {
+                if (!pending.contains(area)) {
+                    Log.d("RUN_PLAN1", area + " already found from an earlier stop, skipping its move");
+                    continue;
+                }
+
+                // keep the reserved time for the scoring steps
+                if (!scheduler.hasSlackFor(Constants.AREA_SEARCH_ESTIMATE_MS)) {
+                    Log.w("RUN_PLAN1", "Out of slack, skipping " + area + " and the remaining areas");
+                    break;
+                }
+
+                try {
+                    // move to the area, capture every pending plane in range, read ar tags
+                    // (with a permissive second detection pass on a miss, while there is time)
+                    Map<AreaEnum, ArTagDetectionData> found = areaProcessor.searchFromArea(area, pending);
+
+                    // store ar tag data
+                    detections.putAll(found);
+                    pending.removeAll(found.keySet());
+                }
+                catch (Exception e) {
+                    Log.e("RUN_PLAN1", "Error processing " + area + ", skipping to next", e);
                 }
             }
-            catch (Exception e) {
-                Log.e("RUN_PLAN1", "Error processing " + area + ", skipping to next", e);
-            }
-        }
 
-        /* ******************************************************************************** */
-        /* Write your code to recognize the type and number of landmark items in each area! */
-        /* If there is a treasure item, remember it.                                        */
-        /* ******************************************************************************** */
+            /* ******************************************************************************** */
+            /* Write your code to recognize the type and number of landmark items in each area! */
+            /* If there is a treasure item, remember it.                                        */
+            /* ******************************************************************************** */
 
-        // When you recognize landmark items, let’s set the type and number.
-//        api.setAreaInfo(1, "item_name", 1);
+            // When you recognize landmark items, let’s set the type and number.
+    //        api.setAreaInfo(1, "item_name", 1);
 
 
-        // When you move to the front of the astronaut, report the rounding completion
-        Point astronautPoint = new Point(9.866984d, -6.7d, 5d);
-        Quaternion astronautQuaternion = new Quaternion(0f, 0f, -0.707f, 0.707f);
-        movementService.moveToTargetPosition(astronautPoint, astronautQuaternion);
+            // When you move to the front of the astronaut, report the rounding completion
+            Point astronautPoint = new Point(9.866984d, -6.7d, 5d);
+            Quaternion astronautQuaternion = new Quaternion(0f, 0f, -0.707f, 0.707f);
+            movementService.moveToTargetPosition(astronautPoint, astronautQuaternion);
 
-        api.reportRoundingCompletion();
+            api.reportRoundingCompletion();
+            scheduler.completePhase(MissionPhase.ROUNDING_REPORT);
 
-        /* ********************************************************** */
-        /* Write your code to recognize which target item the astronaut has. */
-        /* ********************************************************** */
+            /* ********************************************************** */
+            /* Write your code to recognize which target item the astronaut has. */
+            /* ********************************************************** */
 
-        // Let's notify the astronaut when you recognize it.
-        api.notifyRecognitionItem();
+            // Let's notify the astronaut when you recognize it.
+            api.notifyRecognitionItem();
+            scheduler.completePhase(MissionPhase.RECOGNITION);
 
-        /* ******************************************************************************************************* */
-        /* Write your code to move Astrobee to the location of the target item (what the astronaut is looking for) */
-        /* ******************************************************************************************************* */
+            /* ******************************************************************************************************* */
+            /* Write your code to move Astrobee to the location of the target item (what the astronaut is looking for) */
+            /* ******************************************************************************************************* */
 
-        // Take a snapshot of the target item.
-        api.takeTargetItemSnapshot();
+            // Take a snapshot of the target item.
+            api.takeTargetItemSnapshot();
+            scheduler.completePhase(MissionPhase.TARGET_SNAPSHOT);
+        }
+        finally {
+            // stop the camera workers and flush the record even if the mission fails midway
+            dualCameraCaptureService.shutdown();
+            closeFlightRecorder();
+        }
+    }
+
+    /**
+     * Creates a flight record file in the app's external files directory
+     * (falling back to internal storage).
+     *
+     * @return the recorder, or null if the file could not be created
+     */
+    private FlightRecorder openFlightRecorder() {
+        File directory = getExternalFilesDir(null);
+        if (directory == null) {
+            directory = getFilesDir();
+        }
+
+        File target = new File(directory, "FLIGHT_RECORD_" + System.currentTimeMillis() + ".kfr");
+        try {
+            return new FlightRecorder(
+                    target,
+                    Constants.FLIGHT_RECORDER_MAX_FRAMES,
+                    Constants.NAV_CAM_WIDTH * Constants.NAV_CAM_HEIGHT,
+                    api.getNavCamIntrinsics()
+            );
+        }
+        catch (IOException e) {
+            Log.e("FLIGHT_RECORDER", "Could not open " + target + "; falling back to JPEG saves", e);
+            return null;
+        }
+    }
+
+    private void closeFlightRecorder() {
+        if (flightRecorder == null) {
+            return;
+        }
+
+        try {
+            flightRecorder.close();
+        }
+        catch (IOException e) {
+            Log.e("FLIGHT_RECORDER", "Failed to close flight record", e);
+        }
+        flightRecorder = null;
     }
 
     @Override
@@ -0,0 +1,145 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk.common;
+
+import gov.nasa.arc.astrobee.types.Point;
+
+/**
+ * Axis-aligned box in world coordinates, used for keep-in / keep-out zones and area bounds.
+ *
+ * @author Hashib Islam (#)
+ * @since 2025-04-24
+ */
+
+public class AxisAlignedBox {
+    private final double xMin;
+    private final double yMin;
+    private final double zMin;
+    private final double xMax;
+    private final double yMax;
+    private final double zMax;
+
+    public AxisAlignedBox(double xMin, double yMin, double zMin, double xMax, double yMax, double zMax) {
+        this.xMin = xMin;
+        this.yMin = yMin;
+        this.zMin = zMin;
+        this.xMax = xMax;
+        this.yMax = yMax;
+        this.zMax = zMax;
+    }
+
+    public double getXMin() {
+        return xMin;
+    }
+
+    public double getYMin() {
+        return yMin;
+    }
+
+    public double getZMin() {
+        return zMin;
+    }
+
+    public double getXMax() {
+        return xMax;
+    }
+
+    public double getYMax() {
+        return yMax;
+    }
+
+    public double getZMax() {
+        return zMax;
+    }
+
+    public Point getCenter() {
+        return new Point((xMin + xMax) / 2.0, (yMin + yMax) / 2.0, (zMin + zMax) / 2.0);
+    }
+
+    /**
+     * @param margin distance to grow each face by; negative values shrink the box
+     * @return a new box grown by the margin on every side
+     */
+    public AxisAlignedBox inflate(double margin) {
+        return new AxisAlignedBox(
+                xMin - margin, yMin - margin, zMin - margin,
+                xMax + margin, yMax + margin, zMax + margin
+        );
+    }
+
+    /**
+     * @return the overlap of the two boxes, or null if they do not overlap
+     */
+    public AxisAlignedBox intersect(AxisAlignedBox other) {
+        double x0 = Math.max(xMin, other.xMin), x1 = Math.min(xMax, other.xMax);
+        double y0 = Math.max(yMin, other.yMin), y1 = Math.min(yMax, other.yMax);
+        double z0 = Math.max(zMin, other.zMin), z1 = Math.min(zMax, other.zMax);
+
+        if (x0 > x1 || y0 > y1 || z0 > z1) {
+            return null;
+        }
+        return new AxisAlignedBox(x0, y0, z0, x1, y1, z1);
+    }
+
+    public boolean contains(Point point) {
+        return point.getX() >= xMin && point.getX() <= xMax
+                && point.getY() >= yMin && point.getY() <= yMax
+                && point.getZ() >= zMin && point.getZ() <= zMax;
+    }
+
+    /**
+     * @return the eight corners of the box (duplicates for flat boxes)
+     */
+    public Point[] getCorners() {
+        Point[] corners = new Point[8];
+        for (int i = 0; i < corners.length; i++) {
+            corners[i] = new Point(
+                    (i & 1) == 0 ? xMin : xMax,
+                    (i & 2) == 0 ? yMin : yMax,
+                    (i & 4) == 0 ? zMin : zMax
+            );
+        }
+        return corners;
+    }
+
+    /**
+     * Clips the segment from -> to against this box (slab method).
+     *
+     * @return {tEnter, tExit} as fractions of the segment in [0, 1], or null if the segment misses the box
+     */
+    public double[] clipSegment(Point from, Point to) {
+        double[] origin = {from.getX(), from.getY(), from.getZ()};
+        double[] delta = {to.getX() - from.getX(), to.getY() - from.getY(), to.getZ() - from.getZ()};
+        double[] min = {xMin, yMin, zMin};
+        double[] max = {xMax, yMax, zMax};
+
+        double tEnter = 0d;
+        double tExit = 1d;
+
+        for (int axis = 0; axis < 3; axis++) {
+            if (delta[axis] == 0d) {
+                if (origin[axis] < min[axis] || origin[axis] > max[axis]) {
+                    return null;
+                }
+                continue;
+            }
+
+            double t0 = (min[axis] - origin[axis]) / delta[axis];
+            double t1 = (max[axis] - origin[axis]) / delta[axis];
+            tEnter = Math.max(tEnter, Math.min(t0, t1));
+            tExit = Math.min(tExit, Math.max(t0, t1));
+
+            if (tEnter > tExit) {
+                return null;
+            }
+        }
+
+        return new double[]{tEnter, tExit};
+    }
+
+    @Override
+    public String toString() {
+        return "AxisAlignedBox{" +
+                "min=(" + xMin + ", " + yMin + ", " + zMin + ")" +
+                ", max=(" + xMax + ", " + yMax + ", " + zMax + ")" +
+                '}';
+    }
+}
@@ -11,6 +11,7 @@ import gov.nasa.arc.astrobee.types.Point;
 import gov.nasa.arc.astrobee.types.Quaternion;
 import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.AreaEnum;
 import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.CartesianDirection;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.MissionPhase;
 
 /**
  * @author Hashib Islam (#)
@@ -21,10 +22,37 @@ public class Constants {
     public static final int MAX_RETRIES = 3;
     public static final int RETRY_WAIT_MS = 500;
     public static final int MOVE_TO_COMPLETE_WAIT_MS = 1500;
-    public static final int CAM_STABILIZATION_WAIT_MS = 2000;
+    public static final int FRAME_POLL_INTERVAL_MS = 250;
+    public static final int FRAME_MAX_GRABS = 4;
+    public static final int FRAME_HASH_SIZE = 8;
+    public static final int FRAME_HASH_MIN_DISTANCE = 3;
+    public static final int DUAL_CAPTURE_TIMEOUT_MS = 10000;
     public static final boolean DEBUG_MODE = true;
+    public static final long MISSION_TIME_LIMIT_MS = 5 * 60 * 1000L;
+    public static final long SLACK_REDUCED_THRESHOLD_MS = 60 * 1000L;
+    public static final long SLACK_MINIMAL_THRESHOLD_MS = 20 * 1000L;
+    public static final long AREA_SEARCH_ESTIMATE_MS = 20 * 1000L;
+    public static final long RETRY_DETECTION_MIN_ESTIMATE_PER_FRAME_MS = 250L;
+    public static final int RETRY_DETECTION_THRESH_WIN_SIZE_MAX = 53;
+    public static final int RETRY_DETECTION_THRESH_WIN_SIZE_STEP = 4;
+    public static final double RETRY_DETECTION_MIN_MARKER_PERIMETER_RATE = 0.01;
+    public static final Map<MissionPhase, Long> PHASE_RESERVATION_MS;
+    public static final int NAV_CAM_WIDTH = 1280;
+    public static final int NAV_CAM_HEIGHT = 960;
+    public static final double NAV_CAM_FALLBACK_FOCAL_PX = 600d;
+    public static final double VIEW_PLANNER_FOV_MARGIN = 0.9;
+    public static final double SEARCH_CAPTURE_MAX_DISTANCE_M = 1.6;
+    public static final double MARKER_ATTRIBUTION_TOLERANCE_M = 0.3;
+    public static final int FLIGHT_RECORDER_MAX_FRAMES = 64;
+    public static final int WARM_UP_ITERATIONS = 2;
+    public static final int WARM_UP_MARKER_SIZE_PX = 200;
+    public static final double PATH_PLANNER_CLEARANCE_M = 0.1;
+    public static final double PATH_PLANNER_CACHE_RESOLUTION_M = 0.01;
     public static final  List<AreaEnum> AREA_LIST;
+    public static final List<AxisAlignedBox> KEEP_IN_ZONES;
+    public static final List<AxisAlignedBox> KEEP_OUT_ZONES;
     public static final Map<AreaEnum, QuaternionPoint> LOST_ITEM_SEARCH_PLANE_PER_AREA;
+    public static final Map<AreaEnum, AxisAlignedBox> LOST_ITEM_SEARCH_PLANE_BOUNDS_PER_AREA;
 
     public static final QuaternionPoint AREA_1_COORDINATES = new QuaternionPoint(
             new Point(11d, -9.8d, 4.8d),
@@ -59,6 +87,37 @@ public class Constants {
         AREA_COORDINATES_MAP = Collections.unmodifiableMap(map);
     }
 
+    static {
+        // time kept back for the scoring steps that must run before the time limit
+        Map<MissionPhase, Long> map = new EnumMap<>(MissionPhase.class);
+
+        map.put(MissionPhase.ROUNDING_REPORT, 30 * 1000L);   // move to astronaut + report
+        map.put(MissionPhase.RECOGNITION, 5 * 1000L);        // recognize + notify
+        map.put(MissionPhase.TARGET_SNAPSHOT, 40 * 1000L);   // move to target item + snapshot
+
+        PHASE_RESERVATION_MS = Collections.unmodifiableMap(map);
+    }
+
+    static {
+        // keep-in zones based on rule book, robot center must stay inside their union
+        List<AxisAlignedBox> keepIn = new ArrayList<>();
+        keepIn.add(new AxisAlignedBox(10.30, -10.20, 4.32, 11.55, -6.00, 5.57));   // KIZ1
+        keepIn.add(new AxisAlignedBox( 9.50, -10.50, 4.02, 10.50, -9.60, 4.80));   // KIZ2
+
+        KEEP_IN_ZONES = Collections.unmodifiableList(keepIn);
+
+        // keep-out zones based on rule book, each wall is split into an upper and lower panel
+        List<AxisAlignedBox> keepOut = new ArrayList<>();
+        keepOut.add(new AxisAlignedBox(10.87, -9.50, 4.27, 11.60, -9.45, 4.97));   // KOZ1
+        keepOut.add(new AxisAlignedBox(10.25, -9.50, 4.97, 10.87, -9.45, 5.62));
+        keepOut.add(new AxisAlignedBox(10.87, -8.50, 4.97, 11.60, -8.45, 5.62));   // KOZ2
+        keepOut.add(new AxisAlignedBox(10.25, -8.50, 4.27, 10.70, -8.45, 4.97));
+        keepOut.add(new AxisAlignedBox(10.87, -7.40, 4.27, 11.60, -7.35, 4.97));   // KOZ3
+        keepOut.add(new AxisAlignedBox(10.25, -7.40, 4.97, 10.87, -7.35, 5.62));
+
+        KEEP_OUT_ZONES = Collections.unmodifiableList(keepOut);
+    }
+
     static {
         List<AreaEnum> list = new ArrayList<>();
 
@@ -80,17 +139,17 @@ public class Constants {
         };
 
         Map<AreaEnum, QuaternionPoint> map = new EnumMap<>(AreaEnum.class);
+        Map<AreaEnum, AxisAlignedBox> boundsMap = new EnumMap<>(AreaEnum.class);
         for (AreaEnum area : AreaEnum.values()) {
             double[] bounds = BOUNDS[area.ordinal()];
             double xMin = bounds[0], yMin = bounds[1], zMin = bounds[2];
             double xMax = bounds[3], yMax = bounds[4], zMax = bounds[5];
 
+            AxisAlignedBox box = new AxisAlignedBox(xMin, yMin, zMin, xMax, yMax, zMax);
+            boundsMap.put(area, box);
+
             // calc center
-            Point center = new Point(
-                    (xMin + xMax) / 2.0,
-                    (yMin + yMax) / 2.0,
-                    (zMin + zMax) / 2.0
-            );
+            Point center = box.getCenter();
 
             // store enum orientation
             CartesianDirection cartesianDirection;
@@ -126,5 +185,6 @@ public class Constants {
         }
 
         LOST_ITEM_SEARCH_PLANE_PER_AREA = Collections.unmodifiableMap(map);
+        LOST_ITEM_SEARCH_PLANE_BOUNDS_PER_AREA = Collections.unmodifiableMap(boundsMap);
     }
 }
@@ -0,0 +1,6 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration;
+
+public enum CameraEnum {
+    NAV_CAM,
+    DOCK_CAM
+}
@@ -0,0 +1,7 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration;
+
+public enum MissionPhase {
+    ROUNDING_REPORT,
+    RECOGNITION,
+    TARGET_SNAPSHOT
+}
@@ -0,0 +1,63 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk.recorder;
+
+import java.nio.ByteOrder;
+
+/**
+ * Binary layout shared by {@link FlightRecorder} and {@link FlightRecordReader}.
+ * All values are little-endian.
+ *
+ * <pre>
+ * [ header (HEADER_SIZE) | index (maxFrames * ENTRY_SIZE) | raw pixel data (dataCapacity) ]
+ * </pre>
+ *
+ * Kept free of Android and OpenCV classes so the reader can run on a plain JVM.
+ *
+ * @author Hashib Islam (#)
+ * @since 2025-04-24
+ */
+
+public final class FlightRecordFormat {
+    public static final int MAGIC = 0x4B465231; // "KFR1"
+    public static final int VERSION = 1;
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    public static final int CAMERA_MATRIX_SIZE = 9;
+    public static final int MAX_DIST_COEFFS = 8;
+    public static final int LABEL_SIZE = 16;
+    public static final int NO_AREA = -1;
+
+    // header offsets
+    public static final int HEADER_MAGIC = 0;
+    public static final int HEADER_VERSION = 4;
+    public static final int HEADER_MAX_FRAMES = 8;
+    public static final int HEADER_FRAME_COUNT = 12;
+    public static final int HEADER_DATA_CAPACITY = 16;
+    public static final int HEADER_DATA_END = 24;
+    public static final int HEADER_DIST_COEFF_COUNT = 32;
+    public static final int HEADER_CAMERA_MATRIX = 40;
+    public static final int HEADER_DIST_COEFFS = HEADER_CAMERA_MATRIX + CAMERA_MATRIX_SIZE * 8;
+    public static final int HEADER_SIZE = 256;
+
+    // index entry offsets
+    public static final int ENTRY_DATA_OFFSET = 0;
+    public static final int ENTRY_WIDTH = 8;
+    public static final int ENTRY_HEIGHT = 12;
+    public static final int ENTRY_CAPTURE_TIME_MS = 16;
+    public static final int ENTRY_AREA = 24;
+    public static final int ENTRY_CONFIDENCE = 28;
+    public static final int ENTRY_LABEL = 32;
+    public static final int ENTRY_POSITION = ENTRY_LABEL + LABEL_SIZE;
+    public static final int ENTRY_ORIENTATION = ENTRY_POSITION + 3 * 8;
+    public static final int ENTRY_SIZE = 96;
+
+    private FlightRecordFormat() {
+    }
+
+    public static long indexOffset(int frame) {
+        return HEADER_SIZE + (long) frame * ENTRY_SIZE;
+    }
+
+    public static long dataRegionOffset(int maxFrames) {
+        return indexOffset(maxFrames);
+    }
+}
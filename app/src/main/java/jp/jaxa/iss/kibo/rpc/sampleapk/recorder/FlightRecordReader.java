@@ -0,0 +1,223 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk.recorder;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import static jp.jaxa.iss.kibo.rpc.sampleapk.recorder.FlightRecordFormat.*;
+
+/**
+ * Read-only view of a file written by {@link FlightRecorder}. The file is memory-mapped and
+ * frame pixels are exposed as slices of the mapping, so nothing is copied until the caller does.
+ * Has no Android or OpenCV dependencies and can be used from offline JVM tools.
+ *
+ * @author Hashib Islam (#)
+ * @since 2025-04-24
+ */
+
+public class FlightRecordReader implements Closeable {
+    private static final Charset LABEL_CHARSET = Charset.forName("US-ASCII");
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int frameCount;
+
+    /**
+     * Maps the record file and validates its header.
+     *
+     * @param source the record file
+     * @throws IOException if the file cannot be read or is not a flight record
+     */
+    public FlightRecordReader(File source) throws IOException {
+        file = new RandomAccessFile(source, "r");
+        try {
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            buffer.order(BYTE_ORDER);
+
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(HEADER_MAGIC) != MAGIC) {
+                throw new IOException(source + " is not a flight record");
+            }
+            if (buffer.getInt(HEADER_VERSION) != VERSION) {
+                throw new IOException("Unsupported flight record version " + buffer.getInt(HEADER_VERSION));
+            }
+
+            frameCount = buffer.getInt(HEADER_FRAME_COUNT);
+        }
+        catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return the flattened 3x3 camera matrix stored at recording time
+     */
+    public double[] getCameraMatrix() {
+        double[] cameraMatrix = new double[CAMERA_MATRIX_SIZE];
+        for (int i = 0; i < cameraMatrix.length; i++) {
+            cameraMatrix[i] = buffer.getDouble(HEADER_CAMERA_MATRIX + i * 8);
+        }
+        return cameraMatrix;
+    }
+
+    /**
+     * @return the distortion coefficients stored at recording time
+     */
+    public double[] getDistCoeffs() {
+        double[] distCoeffs = new double[buffer.getInt(HEADER_DIST_COEFF_COUNT)];
+        for (int i = 0; i < distCoeffs.length; i++) {
+            distCoeffs[i] = buffer.getDouble(HEADER_DIST_COEFFS + i * 8);
+        }
+        return distCoeffs;
+    }
+
+    /**
+     * Reads the index entry of a frame.
+     *
+     * @param index the frame number, 0 based
+     * @return the frame with its pixels backed by the mapping
+     */
+    public Frame getFrame(int index) {
+        if (index < 0 || index >= frameCount) {
+            throw new IndexOutOfBoundsException("Frame " + index + " of " + frameCount);
+        }
+
+        int entry = (int) indexOffset(index);
+        int width = buffer.getInt(entry + ENTRY_WIDTH);
+        int height = buffer.getInt(entry + ENTRY_HEIGHT);
+        int dataOffset = (int) buffer.getLong(entry + ENTRY_DATA_OFFSET);
+
+        ByteBuffer pixels = buffer.duplicate();
+        pixels.position(dataOffset);
+        pixels.limit(dataOffset + width * height);
+
+        byte[] labelBytes = new byte[LABEL_SIZE];
+        int labelLength = 0;
+        while (labelLength < LABEL_SIZE && buffer.get(entry + ENTRY_LABEL + labelLength) != 0) {
+            labelBytes[labelLength] = buffer.get(entry + ENTRY_LABEL + labelLength);
+            labelLength++;
+        }
+
+        double[] position = new double[3];
+        for (int i = 0; i < position.length; i++) {
+            position[i] = buffer.getDouble(entry + ENTRY_POSITION + i * 8);
+        }
+
+        float[] orientation = new float[4];
+        for (int i = 0; i < orientation.length; i++) {
+            orientation[i] = buffer.getFloat(entry + ENTRY_ORIENTATION + i * 4);
+        }
+
+        return new Frame(
+                index,
+                width,
+                height,
+                buffer.getLong(entry + ENTRY_CAPTURE_TIME_MS),
+                buffer.getInt(entry + ENTRY_AREA),
+                new String(labelBytes, 0, labelLength, LABEL_CHARSET),
+                buffer.getInt(entry + ENTRY_CONFIDENCE),
+                position,
+                orientation,
+                pixels.slice().asReadOnlyBuffer()
+        );
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * One recorded frame. Area and confidence are enum ordinals (-1 when absent),
+     * orientation is x, y, z, w.
+     */
+    public static class Frame {
+        private final int index;
+        private final int width;
+        private final int height;
+        private final long captureTimeMs;
+        private final int area;
+        private final String label;
+        private final int confidence;
+        private final double[] position;
+        private final float[] orientation;
+        private final ByteBuffer pixels;
+
+        Frame(int index, int width, int height, long captureTimeMs, int area, String label,
+              int confidence, double[] position, float[] orientation, ByteBuffer pixels) {
+            this.index = index;
+            this.width = width;
+            this.height = height;
+            this.captureTimeMs = captureTimeMs;
+            this.area = area;
+            this.label = label;
+            this.confidence = confidence;
+            this.position = position;
+            this.orientation = orientation;
+            this.pixels = pixels;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public long getCaptureTimeMs() {
+            return captureTimeMs;
+        }
+
+        public int getArea() {
+            return area;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public int getConfidence() {
+            return confidence;
+        }
+
+        public double[] getPosition() {
+            return position;
+        }
+
+        public float[] getOrientation() {
+            return orientation;
+        }
+
+        /**
+         * @return read-only, row-major CV_8UC1 pixels backed by the mapped file
+         */
+        public ByteBuffer getPixels() {
+            return pixels.duplicate();
+        }
+
+        @Override
+        public String toString() {
+            return "Frame{" +
+                    "index=" + index +
+                    ", size=" + width + "x" + height +
+                    ", captureTimeMs=" + captureTimeMs +
+                    ", area=" + area +
+                    ", label=" + label +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk.recorder;
+
+import android.util.Log;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import gov.nasa.arc.astrobee.Kinematics;
+import gov.nasa.arc.astrobee.types.Point;
+import gov.nasa.arc.astrobee.types.Quaternion;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.AreaEnum;
+
+import static jp.jaxa.iss.kibo.rpc.sampleapk.recorder.FlightRecordFormat.*;
+
+/**
+ * Append-only recorder that stores raw CV_8UC1 frames together with their capture time,
+ * area tag and robot kinematics in a preallocated, memory-mapped file.
+ * Read the file back with {@link FlightRecordReader}.
+ *
+ * @author Hashib Islam (#)
+ * @since 2025-04-24
+ */
+
+public class FlightRecorder implements Closeable {
+    private static final Charset LABEL_CHARSET = Charset.forName("US-ASCII");
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int maxFrames;
+    private final long dataStart;
+    private final long dataCapacity;
+
+    private int frameCount = 0;
+    private long dataEnd = 0;
+    private byte[] scratch = new byte[0];
+
+    /**
+     * Creates the record file, preallocates it for the given number of frames and writes the header.
+     *
+     * @param target        the file to create (overwritten if it exists)
+     * @param maxFrames     number of index slots
+     * @param maxFrameBytes pixel budget per frame; the data region holds maxFrames of these
+     * @param intrinsics    camera intrinsics as returned by the API ([0] camera matrix, [1] distortion), may be null
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public FlightRecorder(File target, int maxFrames, int maxFrameBytes, double[][] intrinsics) throws IOException {
+        this.maxFrames = maxFrames;
+        this.dataStart = dataRegionOffset(maxFrames);
+        this.dataCapacity = (long) maxFrames * maxFrameBytes;
+
+        long totalSize = dataStart + dataCapacity;
+        if (totalSize > Integer.MAX_VALUE) {
+            throw new IOException("Flight record of " + totalSize + " bytes exceeds a single mapping");
+        }
+
+        file = new RandomAccessFile(target, "rw");
+        try {
+            file.setLength(totalSize);
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, totalSize);
+            buffer.order(BYTE_ORDER);
+
+            writeHeader(intrinsics);
+        }
+        catch (IOException | RuntimeException e) {
+            // e.g. not enough space for the preallocation; don't leak the descriptor or a partial file
+            file.close();
+            if (!target.delete()) {
+                Log.w("FLIGHT_RECORDER", "Could not delete partial record " + target);
+            }
+            throw e;
+        }
+        Log.d("FLIGHT_RECORDER", "Recording to " + target + " (" + totalSize + " bytes)");
+    }
+
+    /**
+     * Appends a frame to the record. The index entry is written before the frame count is
+     * bumped, so a reader never sees a partially written frame.
+     *
+     * @param frame         the raw CV_8UC1 image
+     * @param captureTimeMs wall-clock time the frame was received
+     * @param area          the area the frame belongs to, or null
+     * @param label         short tag such as an orientation label (truncated to 16 bytes), or null
+     * @param kinematics    the robot kinematics at capture time, or null
+     * @return true if the frame was stored, false if it is invalid or the record is full
+     */
+    public synchronized boolean record(Mat frame, long captureTimeMs, AreaEnum area, String label,
+                                       Kinematics kinematics) {
+        if (frame == null || frame.empty() || frame.type() != CvType.CV_8UC1) {
+            Log.w("FLIGHT_RECORDER", "Skipping frame that is not a non-empty CV_8UC1 image");
+            return false;
+        }
+
+        int length = (int) frame.total();
+        if (isFull(length, label)) {
+            return false;
+        }
+
+        if (scratch.length < length) {
+            scratch = new byte[length];
+        }
+
+        Mat continuous = frame.isContinuous() ? frame : frame.clone();
+        try {
+            continuous.get(0, 0, scratch);
+        }
+        finally {
+            if (continuous != frame) continuous.release();
+        }
+
+        append(scratch, frame.cols(), frame.rows(), captureTimeMs, area, label, kinematics);
+        return true;
+    }
+
+    /**
+     * Same as {@link #record(Mat, long, AreaEnum, String, Kinematics)} for row-major CV_8UC1 pixels
+     * that are already on the heap, e.g. to exercise the format without OpenCV natives.
+     *
+     * @param pixels at least width * height bytes
+     */
+    synchronized boolean record(byte[] pixels, int width, int height, long captureTimeMs, AreaEnum area,
+                                String label, Kinematics kinematics) {
+        if (width <= 0 || height <= 0 || pixels.length < width * height) {
+            Log.w("FLIGHT_RECORDER", "Skipping frame with " + pixels.length + " bytes for " + width + "x" + height);
+            return false;
+        }
+
+        if (isFull(width * height, label)) {
+            return false;
+        }
+
+        append(pixels, width, height, captureTimeMs, area, label, kinematics);
+        return true;
+    }
+
+    public synchronized int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Flushes the mapping to disk and closes the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        file.close();
+        Log.d("FLIGHT_RECORDER", "Closed record with " + frameCount + " frames");
+    }
+
+    private boolean isFull(int length, String label) {
+        if (frameCount >= maxFrames || dataEnd + length > dataCapacity) {
+            Log.w("FLIGHT_RECORDER", "Record full, dropping frame " + label);
+            return true;
+        }
+        return false;
+    }
+
+    private void append(byte[] pixels, int width, int height, long captureTimeMs, AreaEnum area, String label,
+                        Kinematics kinematics) {
+        int length = width * height;
+        long dataOffset = dataStart + dataEnd;
+        buffer.position((int) dataOffset);
+        buffer.put(pixels, 0, length);
+
+        int entry = (int) indexOffset(frameCount);
+        buffer.putLong(entry + ENTRY_DATA_OFFSET, dataOffset);
+        buffer.putInt(entry + ENTRY_WIDTH, width);
+        buffer.putInt(entry + ENTRY_HEIGHT, height);
+        buffer.putLong(entry + ENTRY_CAPTURE_TIME_MS, captureTimeMs);
+        buffer.putInt(entry + ENTRY_AREA, area != null ? area.ordinal() : NO_AREA);
+        writeLabel(entry + ENTRY_LABEL, label);
+        writeKinematics(entry, kinematics);
+
+        dataEnd += length;
+        frameCount++;
+        buffer.putLong(HEADER_DATA_END, dataEnd);
+        buffer.putInt(HEADER_FRAME_COUNT, frameCount);
+    }
+
+    private void writeHeader(double[][] intrinsics) {
+        buffer.putInt(HEADER_MAGIC, MAGIC);
+        buffer.putInt(HEADER_VERSION, VERSION);
+        buffer.putInt(HEADER_MAX_FRAMES, maxFrames);
+        buffer.putInt(HEADER_FRAME_COUNT, 0);
+        buffer.putLong(HEADER_DATA_CAPACITY, dataCapacity);
+        buffer.putLong(HEADER_DATA_END, 0L);
+
+        double[] cameraData = intrinsics != null && intrinsics.length > 0 ? intrinsics[0] : null;
+        double[] distCoeffs = intrinsics != null && intrinsics.length > 1 ? intrinsics[1] : null;
+
+        for (int i = 0; i < CAMERA_MATRIX_SIZE; i++) {
+            double value = cameraData != null && i < cameraData.length ? cameraData[i] : 0d;
+            buffer.putDouble(HEADER_CAMERA_MATRIX + i * 8, value);
+        }
+
+        int distCount = distCoeffs != null ? Math.min(distCoeffs.length, MAX_DIST_COEFFS) : 0;
+        buffer.putInt(HEADER_DIST_COEFF_COUNT, distCount);
+        for (int i = 0; i < distCount; i++) {
+            buffer.putDouble(HEADER_DIST_COEFFS + i * 8, distCoeffs[i]);
+        }
+    }
+
+    private void writeLabel(int offset, String label) {
+        byte[] bytes = label != null ? label.getBytes(LABEL_CHARSET) : new byte[0];
+        if (bytes.length > LABEL_SIZE) {
+            Log.w("FLIGHT_RECORDER", "Label " + label + " truncated to " + LABEL_SIZE + " bytes");
+        }
+        for (int i = 0; i < LABEL_SIZE; i++) {
+            buffer.put(offset + i, i < bytes.length ? bytes[i] : 0);
+        }
+    }
+
+    private void writeKinematics(int entry, Kinematics kinematics) {
+        Point position = kinematics != null ? kinematics.getPosition() : null;
+        Quaternion orientation = kinematics != null ? kinematics.getOrientation() : null;
+        Kinematics.Confidence confidence = kinematics != null ? kinematics.getConfidence() : null;
+
+        buffer.putInt(entry + ENTRY_CONFIDENCE, confidence != null ? confidence.ordinal() : -1);
+
+        buffer.putDouble(entry + ENTRY_POSITION, position != null ? position.getX() : Double.NaN);
+        buffer.putDouble(entry + ENTRY_POSITION + 8, position != null ? position.getY() : Double.NaN);
+        buffer.putDouble(entry + ENTRY_POSITION + 16, position != null ? position.getZ() : Double.NaN);
+
+        buffer.putFloat(entry + ENTRY_ORIENTATION, orientation != null ? orientation.getX() : Float.NaN);
+        buffer.putFloat(entry + ENTRY_ORIENTATION + 4, orientation != null ? orientation.getY() : Float.NaN);
+        buffer.putFloat(entry + ENTRY_ORIENTATION + 8, orientation != null ? orientation.getZ() : Float.NaN);
+        buffer.putFloat(entry + ENTRY_ORIENTATION + 12, orientation != null ? orientation.getW() : Float.NaN);
+    }
+}
@@ -0,0 +1,132 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import gov.nasa.arc.astrobee.types.Point;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.AxisAlignedBox;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.Constants;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.AreaEnum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the planned mission legs against the rule book zones in Constants.
+ *
+ * @author Hashib Islam (#)
+ * @since 2025-04-24
+ */
+
+public class PathPlannerTest {
+    // where the robot starts the mission, inside KIZ2
+    private static final Point DOCK_POINT = new Point(9.815d, -9.806d, 4.293d);
+    // the astronaut point used by runPlan1, outside KIZ1
+    private static final Point ASTRONAUT_POINT = new Point(9.866984d, -6.7d, 5d);
+
+    private static final double SAMPLE_STEP_M = 0.005;
+    private static final double TOLERANCE_M = 0.001;
+
+    private PathPlanner planner;
+
+    @Before
+    public void setUp() {
+        planner = new PathPlanner(
+                Constants.KEEP_IN_ZONES,
+                Constants.KEEP_OUT_ZONES,
+                Constants.PATH_PLANNER_CLEARANCE_M,
+                Constants.PATH_PLANNER_CACHE_RESOLUTION_M
+        );
+    }
+
+    @Test
+    public void missionLegsKeepTheClearance() {
+        List<Point> stops = new ArrayList<>();
+        stops.add(DOCK_POINT);
+        for (AreaEnum area : Constants.AREA_LIST) {
+            stops.add(Constants.AREA_COORDINATES_MAP.get(area).getPoint());
+        }
+
+        double clearance = Constants.PATH_PLANNER_CLEARANCE_M - TOLERANCE_M;
+        for (int i = 0; i < stops.size() - 1; i++) {
+            List<Point> path = planner.plan(stops.get(i), stops.get(i + 1));
+            assertEquals("leg " + i + " ends at its goal", stops.get(i + 1), path.get(path.size() - 1));
+
+            Point from = stops.get(i);
+            for (Point to : path) {
+                int samples = (int) Math.ceil(distanceBetween(from, to) / SAMPLE_STEP_M);
+                for (int k = 0; k <= samples; k++) {
+                    Point sample = interpolate(from, to, samples == 0 ? 0d : (double) k / samples);
+
+                    for (AxisAlignedBox zone : Constants.KEEP_OUT_ZONES) {
+                        assertFalse("leg " + i + " passes " + sample + " near keep-out zone " + zone,
+                                zone.inflate(clearance).contains(sample));
+                    }
+                    assertTrue("leg " + i + " passes " + sample + " near a keep-in wall",
+                            isClearOfKeepInWalls(sample, clearance));
+                }
+                from = to;
+            }
+        }
+    }
+
+    @Test
+    public void goalOutsideTheKeepInZonesIsMovedToDirectly() {
+        Point start = Constants.AREA_COORDINATES_MAP.get(AreaEnum.AREA_4).getPoint();
+
+        assertEquals(Collections.singletonList(ASTRONAUT_POINT), planner.plan(start, ASTRONAUT_POINT));
+    }
+
+    @Test
+    public void inPlaceMoveNearAWallIsASingleMove() {
+        // within the clearance of KIZ1's x = 10.30 wall
+        Point start = new Point(10.35d, -9d, 4.8d);
+        Point goal = new Point(10.35d, -9d, 4.8d);
+
+        assertEquals(Collections.singletonList(goal), planner.plan(start, goal));
+    }
+
+    /**
+     * @return true if every corner of the cube of half-side clearance around the point lies in the
+     *         keep-in union; the shared KIZ1/KIZ2 faces are not walls
+     */
+    private static boolean isClearOfKeepInWalls(Point point, double clearance) {
+        for (int dx = -1; dx <= 1; dx += 2) {
+            for (int dy = -1; dy <= 1; dy += 2) {
+                for (int dz = -1; dz <= 1; dz += 2) {
+                    Point corner = new Point(point.getX() + dx * clearance, point.getY() + dy * clearance,
+                            point.getZ() + dz * clearance);
+
+                    boolean inside = false;
+                    for (AxisAlignedBox zone : Constants.KEEP_IN_ZONES) {
+                        inside |= zone.contains(corner);
+                    }
+                    if (!inside) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Point interpolate(Point from, Point to, double t) {
+        return new Point(
+                from.getX() + t * (to.getX() - from.getX()),
+                from.getY() + t * (to.getY() - from.getY()),
+                from.getZ() + t * (to.getZ() - from.getZ())
+        );
+    }
+
+    private static double distanceBetween(Point a, Point b) {
+        double dx = a.getX() - b.getX();
+        double dy = a.getY() - b.getY();
+        double dz = a.getZ() - b.getZ();
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
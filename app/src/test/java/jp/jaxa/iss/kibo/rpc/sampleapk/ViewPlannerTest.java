@@ -0,0 +1,180 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import gov.nasa.arc.astrobee.types.Point;
+import gov.nasa.arc.astrobee.types.Quaternion;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.AxisAlignedBox;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.Constants;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.AreaEnum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the views planned from each area's search position, with the planes searchFromArea
+ * selects there, against the camera geometry.
+ *
+ * @author Hashib Islam (#)
+ * @since 2025-04-24
+ */
+
+public class ViewPlannerTest {
+    private static final double[] FOV = {
+            2 * Math.atan(Constants.NAV_CAM_WIDTH / (2 * Constants.NAV_CAM_FALLBACK_FOCAL_PX)),
+            2 * Math.atan(Constants.NAV_CAM_HEIGHT / (2 * Constants.NAV_CAM_FALLBACK_FOCAL_PX))
+    };
+
+    @Test
+    public void navCamViewsCoverThePlanesInRangeOfEachStop() {
+        ViewPlanner planner = new ViewPlanner(FOV[0], FOV[1], Constants.VIEW_PLANNER_FOV_MARGIN);
+
+        for (AreaEnum stop : Constants.AREA_LIST) {
+            Map<AreaEnum, AxisAlignedBox> planes = planesInRange(stop);
+            assertEquals(stop + " searches its neighbour", expectedPlanes(stop), planes.keySet());
+
+            List<ViewPlanner.View> views = planner.plan(position(stop), orientation(stop), planes);
+
+            Set<AreaEnum> covered = EnumSet.noneOf(AreaEnum.class);
+            for (ViewPlanner.View view : views) {
+                assertTrue(view.getDockCamAreas().isEmpty());
+                for (AreaEnum area : view.getCoveredAreas()) {
+                    assertTrue(stop + ": " + area + " covered twice", covered.add(area));
+                    assertInFieldOfView(stop, view.getOrientation(), planes.get(area), 1d);
+                }
+            }
+            assertEquals(planes.keySet(), covered);
+        }
+    }
+
+    @Test
+    public void dockCamTakesThePlaneBehindTheRobot() {
+        ViewPlanner planner = new ViewPlanner(FOV, FOV, Constants.VIEW_PLANNER_FOV_MARGIN);
+
+        for (AreaEnum stop : Constants.AREA_LIST) {
+            Map<AreaEnum, AxisAlignedBox> planes = planesInRange(stop);
+            List<ViewPlanner.View> views = planner.plan(position(stop), orientation(stop), planes);
+
+            Set<AreaEnum> covered = EnumSet.noneOf(AreaEnum.class);
+            for (ViewPlanner.View view : views) {
+                for (AreaEnum area : view.getCoveredAreas()) {
+                    assertTrue(covered.add(area));
+                    assertInFieldOfView(stop, view.getOrientation(), planes.get(area), 1d);
+                }
+                for (AreaEnum area : view.getDockCamAreas()) {
+                    assertTrue(covered.add(area));
+                    assertInFieldOfView(stop, view.getOrientation(), planes.get(area), -1d);
+                }
+            }
+            assertEquals(planes.keySet(), covered);
+            assertEquals(stop + " sees its own plane with the NavCam",
+                    Arrays.asList(stop), views.get(0).getCoveredAreas());
+        }
+    }
+
+    @Test
+    public void viewsStartFromTheCurrentOrientationAndRotateLeast() {
+        ViewPlanner planner = new ViewPlanner(FOV[0], FOV[1], Constants.VIEW_PLANNER_FOV_MARGIN);
+
+        for (AreaEnum stop : Constants.AREA_LIST) {
+            Quaternion start = orientation(stop);
+            List<ViewPlanner.View> views = planner.plan(position(stop), start, planesInRange(stop));
+            assertEquals(stop + " needs a turn for its neighbour", 2, views.size());
+
+            List<Quaternion> planned = new ArrayList<>();
+            for (ViewPlanner.View view : views) {
+                planned.add(view.getOrientation());
+            }
+            List<Quaternion> reversed = Arrays.asList(planned.get(1), planned.get(0));
+            assertTrue(stop + " visits the views in the cheaper order",
+                    totalRotation(start, planned) <= totalRotation(start, reversed) + 1e-6);
+        }
+
+        // the search orientations of AREA_2 and AREA_3 already face their planes
+        for (AreaEnum stop : Arrays.asList(AreaEnum.AREA_2, AreaEnum.AREA_3)) {
+            ViewPlanner.View first = planner.plan(position(stop), orientation(stop), planesInRange(stop)).get(0);
+            assertTrue(stop + " reuses the current orientation", first.isCurrentOrientation());
+            assertEquals(Arrays.asList(stop), first.getCoveredAreas());
+        }
+    }
+
+    private static Set<AreaEnum> expectedPlanes(AreaEnum stop) {
+        return stop == AreaEnum.AREA_1 || stop == AreaEnum.AREA_2
+                ? EnumSet.of(AreaEnum.AREA_1, AreaEnum.AREA_2)
+                : EnumSet.of(AreaEnum.AREA_3, AreaEnum.AREA_4);
+    }
+
+    /**
+     * Same selection as AreaProcessor.searchFromArea with every area still pending.
+     */
+    private static Map<AreaEnum, AxisAlignedBox> planesInRange(AreaEnum stop) {
+        Map<AreaEnum, AxisAlignedBox> planes = new EnumMap<>(AreaEnum.class);
+        for (AreaEnum area : Constants.AREA_LIST) {
+            AxisAlignedBox plane = Constants.LOST_ITEM_SEARCH_PLANE_BOUNDS_PER_AREA.get(area);
+            if (area == stop || distanceBetween(position(stop), plane.getCenter())
+                    <= Constants.SEARCH_CAPTURE_MAX_DISTANCE_M) {
+                planes.put(area, plane);
+            }
+        }
+        return planes;
+    }
+
+    /**
+     * Asserts every corner of the plane projects inside the camera image.
+     *
+     * @param forward 1 for the NavCam looking along +X, -1 for the DockCam looking along -X
+     */
+    private static void assertInFieldOfView(AreaEnum stop, Quaternion orientation, AxisAlignedBox plane,
+                                            double forward) {
+        Quaternion inverse = new Quaternion(-orientation.getX(), -orientation.getY(), -orientation.getZ(),
+                orientation.getW());
+        Point from = position(stop);
+
+        for (Point corner : plane.getCorners()) {
+            double[] local = ViewPlanner.rotate(inverse, new double[]{
+                    corner.getX() - from.getX(), corner.getY() - from.getY(), corner.getZ() - from.getZ()});
+            double depth = forward * local[0];
+
+            assertTrue(stop + ": " + plane + " behind the camera", depth > 0);
+            assertTrue(stop + ": " + plane + " outside the horizontal field of view",
+                    Math.abs(local[1] / depth) <= Math.tan(FOV[0] / 2));
+            assertTrue(stop + ": " + plane + " outside the vertical field of view",
+                    Math.abs(local[2] / depth) <= Math.tan(FOV[1] / 2));
+        }
+    }
+
+    private static double totalRotation(Quaternion start, List<Quaternion> orientations) {
+        double total = 0d;
+        Quaternion previous = start;
+        for (Quaternion orientation : orientations) {
+            double dot = previous.getX() * orientation.getX() + previous.getY() * orientation.getY()
+                    + previous.getZ() * orientation.getZ() + previous.getW() * orientation.getW();
+            total += 2 * Math.acos(Math.min(1d, Math.abs(dot)));
+            previous = orientation;
+        }
+        return total;
+    }
+
+    private static Point position(AreaEnum stop) {
+        return Constants.AREA_COORDINATES_MAP.get(stop).getPoint();
+    }
+
+    private static Quaternion orientation(AreaEnum stop) {
+        return Constants.LOST_ITEM_SEARCH_PLANE_PER_AREA.get(stop).getQuaternion();
+    }
+
+    private static double distanceBetween(Point a, Point b) {
+        double dx = a.getX() - b.getX();
+        double dy = a.getY() - b.getY();
+        double dz = a.getZ() - b.getZ();
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
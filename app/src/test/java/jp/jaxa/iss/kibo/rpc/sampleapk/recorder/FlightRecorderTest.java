@@ -0,0 +1,150 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk.recorder;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import gov.nasa.arc.astrobee.Kinematics;
+import gov.nasa.arc.astrobee.types.Point;
+import gov.nasa.arc.astrobee.types.Quaternion;
+import gov.nasa.arc.astrobee.types.Vec3d;
+import jp.jaxa.iss.kibo.rpc.sampleapk.common.enumeration.AreaEnum;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Writes flight records with {@link FlightRecorder} and reads them back with {@link FlightRecordReader}.
+ *
+ * @author Hashib Islam (#)
+ * @since 2025-04-24
+ */
+
+public class FlightRecorderTest {
+    private static final int WIDTH = 8;
+    private static final int HEIGHT = 6;
+    private static final double[][] INTRINSICS = {
+            {523.1, 0, 635.8, 0, 534.5, 534.5, 0, 0, 1},
+            {-0.16, 0.02, 0.001, -0.002, 0.0}
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordReadsBackUnchanged() throws Exception {
+        File target = folder.newFile("test.kfr");
+        byte[] first = pixels(0);
+        byte[] second = pixels(100);
+
+        FlightRecorder recorder = new FlightRecorder(target, 4, WIDTH * HEIGHT, INTRINSICS);
+        assertTrue(recorder.record(first, WIDTH, HEIGHT, 1234L, AreaEnum.AREA_3, "AREA_3+4",
+                kinematics(new Point(10.7, -8.1, 5.2), new Quaternion(0f, 0.707f, 0f, 0.707f))));
+        assertTrue(recorder.record(second, WIDTH, HEIGHT, 5678L, null, null, null));
+        recorder.close();
+
+        FlightRecordReader reader = new FlightRecordReader(target);
+        try {
+            assertEquals(2, reader.getFrameCount());
+            assertArrayEquals(INTRINSICS[0], reader.getCameraMatrix(), 0d);
+            assertArrayEquals(INTRINSICS[1], reader.getDistCoeffs(), 0d);
+
+            FlightRecordReader.Frame frame = reader.getFrame(0);
+            assertEquals(WIDTH, frame.getWidth());
+            assertEquals(HEIGHT, frame.getHeight());
+            assertEquals(1234L, frame.getCaptureTimeMs());
+            assertEquals(AreaEnum.AREA_3.ordinal(), frame.getArea());
+            assertEquals("AREA_3+4", frame.getLabel());
+            assertEquals(Kinematics.Confidence.GOOD.ordinal(), frame.getConfidence());
+            assertArrayEquals(new double[]{10.7, -8.1, 5.2}, frame.getPosition(), 0d);
+            assertArrayEquals(new float[]{0f, 0.707f, 0f, 0.707f}, frame.getOrientation(), 0f);
+            assertArrayEquals(first, toArray(frame.getPixels()));
+
+            frame = reader.getFrame(1);
+            assertEquals(5678L, frame.getCaptureTimeMs());
+            assertEquals(FlightRecordFormat.NO_AREA, frame.getArea());
+            assertEquals("", frame.getLabel());
+            assertEquals(-1, frame.getConfidence());
+            assertTrue(Double.isNaN(frame.getPosition()[0]));
+            assertTrue(Float.isNaN(frame.getOrientation()[3]));
+            assertArrayEquals(second, toArray(frame.getPixels()));
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void fullRecordDropsFramesAndTruncatesLabels() throws Exception {
+        File target = folder.newFile("full.kfr");
+
+        FlightRecorder recorder = new FlightRecorder(target, 1, WIDTH * HEIGHT, null);
+        assertTrue(recorder.record(pixels(0), WIDTH, HEIGHT, 1L, AreaEnum.AREA_1,
+                "AREA_1+AREA_2+AREA_3", null));
+        assertFalse(recorder.record(pixels(1), WIDTH, HEIGHT, 2L, AreaEnum.AREA_1, null, null));
+        recorder.close();
+
+        FlightRecordReader reader = new FlightRecordReader(target);
+        try {
+            assertEquals(1, reader.getFrameCount());
+            assertEquals("AREA_1+AREA_2+AR", reader.getFrame(0).getLabel());
+            assertArrayEquals(new double[FlightRecordFormat.CAMERA_MATRIX_SIZE], reader.getCameraMatrix(), 0d);
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    private static byte[] pixels(int seed) {
+        byte[] pixels = new byte[WIDTH * HEIGHT];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = (byte) (seed + i * 5);
+        }
+        return pixels;
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static Kinematics kinematics(final Point position, final Quaternion orientation) {
+        return new Kinematics() {
+            @Override
+            public Confidence getConfidence() {
+                return Confidence.GOOD;
+            }
+
+            @Override
+            public Point getPosition() {
+                return position;
+            }
+
+            @Override
+            public Quaternion getOrientation() {
+                return orientation;
+            }
+
+            @Override
+            public Vec3d getLinearVelocity() {
+                return null;
+            }
+
+            @Override
+            public Vec3d getAngularVelocity() {
+                return null;
+            }
+
+            @Override
+            public Vec3d getLinearAcceleration() {
+                return null;
+            }
+        };
+    }
+}
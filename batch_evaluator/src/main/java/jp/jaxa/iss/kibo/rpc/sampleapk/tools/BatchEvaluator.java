@@ -0,0 +1,335 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk.tools;
+
+import org.bytedeco.javacpp.Loader;
+import org.bytedeco.opencv.opencv_java;
+import org.opencv.aruco.Aruco;
+import org.opencv.aruco.Dictionary;
+import org.opencv.calib3d.Calib3d;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import jp.jaxa.iss.kibo.rpc.sampleapk.recorder.FlightRecordReader;
+
+/**
+ * Command-line tool that replays recorded NavCam frames through the undistort + ArUco pipeline
+ * under a grid of detector settings, spread over all cores with a fork-join pool, and reports
+ * detection rate against latency per configuration.
+ *
+ * <pre>
+ * usage: BatchEvaluator &lt;dir&gt; [--threads N] [--min-rate R] [--intrinsics fx,fy,cx,cy,k1,k2,p1,p2,k3]
+ * </pre>
+ *
+ * The directory may hold flight records (*.kfr, intrinsics taken from the record header)
+ * and raw NavCam captures saved as images (SEARCH_CAPTURE_NAV_* / ROTATE_CAPTURE_NAV_*,
+ * undistorted only if --intrinsics is given). Other debug images are already undistorted
+ * or annotated and are skipped. Undistorting configurations only run on frames with intrinsics.
+ * Only configurations the app can apply are recommended.
+ *
+ * @author Hashib Islam (#)
+ * @since 2025-04-24
+ */
+
+public class BatchEvaluator {
+    private static final double DEFAULT_MIN_RATE = 0.98;
+    // debug images that hold the raw NavCam frame, as saved by AreaProcessor
+    private static final String[] RAW_CAPTURE_PREFIXES = {"SEARCH_CAPTURE_NAV_", "ROTATE_CAPTURE_NAV_"};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: BatchEvaluator <dir> [--threads N] [--min-rate R] "
+                    + "[--intrinsics fx,fy,cx,cy,k1,k2,p1,p2,k3]");
+            System.exit(2);
+        }
+
+        File directory = new File(args[0]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        double minRate = DEFAULT_MIN_RATE;
+        double[] imageIntrinsics = null;
+
+        for (int i = 1; i < args.length; i++) {
+            if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            }
+            else if ("--min-rate".equals(args[i]) && i + 1 < args.length) {
+                minRate = Double.parseDouble(args[++i]);
+            }
+            else if ("--intrinsics".equals(args[i]) && i + 1 < args.length) {
+                imageIntrinsics = parseIntrinsics(args[++i]);
+            }
+            else {
+                System.err.println("Unknown argument " + args[i]);
+                System.exit(2);
+            }
+        }
+
+        Loader.load(opencv_java.class);
+        // parallelism comes from the pool; keep each detection single-threaded like on the robot
+        Core.setNumThreads(1);
+
+        List<EvaluationFrame> frames = loadFrames(directory, imageIntrinsics);
+        if (frames.isEmpty()) {
+            System.err.println("No frames found in " + directory);
+            System.exit(1);
+        }
+
+        List<DetectorConfig> configs = new ArrayList<>();
+        boolean anyUndistortable = false;
+        for (EvaluationFrame frame : frames) {
+            anyUndistortable |= frame.hasUndistortMaps();
+        }
+        for (DetectorConfig config : DetectorConfig.grid()) {
+            // without intrinsics these would only repeat the non-undistorting results
+            if (anyUndistortable || !config.isUndistort()) configs.add(config);
+        }
+        if (!anyUndistortable) {
+            System.out.println("No frame has intrinsics; skipping the undistorting configurations");
+        }
+
+        Dictionary dictionary = Aruco.getPredefinedDictionary(Aruco.DICT_5X5_250);
+
+        System.out.println("Evaluating " + configs.size() + " configurations on " + frames.size()
+                + " frames with " + threads + " threads");
+
+        // one untimed pass per configuration so natives and JIT are warm
+        for (DetectorConfig config : configs) {
+            EvaluationTask.detect(config, frames.get(0), dictionary);
+        }
+
+        int items = configs.size() * frames.size();
+        int[] markerCounts = new int[items];
+        long[] latenciesNs = new long[items];
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        try {
+            pool.invoke(new EvaluationTask(configs, frames, dictionary, markerCounts, latenciesNs, 0, items));
+        }
+        finally {
+            pool.shutdown();
+        }
+        long wallMs = (System.nanoTime() - start) / 1000000L;
+
+        report(configs, frames.size(), markerCounts, latenciesNs, minRate);
+        System.out.println("Wall time " + wallMs + "ms");
+    }
+
+    private static void report(List<DetectorConfig> configs, int frameCount, int[] markerCounts,
+                               long[] latenciesNs, double minRate) {
+        List<ConfigResult> results = new ArrayList<>();
+        // undistorting configurations may run on fewer frames, so each is judged against its own frame set
+        double[] bestRate = new double[2];
+
+        for (int c = 0; c < configs.size(); c++) {
+            int evaluated = 0;
+            int detected = 0;
+            long markers = 0;
+            long[] latencies = new long[frameCount];
+
+            for (int f = 0; f < frameCount; f++) {
+                int item = c * frameCount + f;
+                if (markerCounts[item] == EvaluationTask.SKIPPED) {
+                    continue;
+                }
+                if (markerCounts[item] > 0) detected++;
+                markers += markerCounts[item];
+                latencies[evaluated++] = latenciesNs[item];
+            }
+            if (evaluated == 0) {
+                continue;
+            }
+            Arrays.sort(latencies, 0, evaluated);
+
+            double mean = 0d;
+            for (int i = 0; i < evaluated; i++) mean += latencies[i];
+            mean /= evaluated;
+
+            ConfigResult result = new ConfigResult(configs.get(c), evaluated, (double) detected / evaluated,
+                    (double) markers / evaluated, mean / 1e6,
+                    latencies[Math.min(evaluated - 1, (int) Math.ceil(evaluated * 0.95) - 1)] / 1e6);
+            results.add(result);
+            int set = result.config.isUndistort() ? 1 : 0;
+            bestRate[set] = Math.max(bestRate[set], result.detectionRate);
+        }
+
+        Collections.sort(results, new Comparator<ConfigResult>() {
+            @Override
+            public int compare(ConfigResult a, ConfigResult b) {
+                return Double.compare(a.meanMs, b.meanMs);
+            }
+        });
+
+        ConfigResult recommended = null;
+        System.out.println(String.format("%-100s %6s %8s %8s %9s %9s",
+                "config", "frames", "rate", "markers", "mean ms", "p95 ms"));
+        for (ConfigResult result : results) {
+            boolean reliable = result.detectionRate >= bestRate[result.config.isUndistort() ? 1 : 0] * minRate;
+            if (reliable && recommended == null && result.config.isAppApplicable()) {
+                recommended = result;
+            }
+            System.out.println(String.format("%-100s %6d %8.3f %8.2f %9.2f %9.2f%s",
+                    result.config, result.frames, result.detectionRate, result.meanMarkers, result.meanMs, result.p95Ms,
+                    result == recommended ? "  <- fastest reliable the app can use" : ""));
+        }
+
+        System.out.println(String.format("Best detection rate %.3f without and %.3f with undistortion; "
+                + "reliable means >= %.0f%% of the best on the same frames", bestRate[0], bestRate[1], minRate * 100));
+    }
+
+    /**
+     * Loads every flight record and raw capture image in the directory as a grayscale frame,
+     * building undistortion maps once per distinct set of intrinsics.
+     */
+    private static List<EvaluationFrame> loadFrames(File directory, double[] imageIntrinsics) throws IOException {
+        List<EvaluationFrame> frames = new ArrayList<>();
+        Map<String, Mat[]> mapsByIntrinsics = new HashMap<>();
+
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException(directory + " is not a directory");
+        }
+        Arrays.sort(files);
+        int skipped = 0;
+
+        for (File file : files) {
+            String name = file.getName().toLowerCase();
+
+            if (name.endsWith(".kfr")) {
+                FlightRecordReader reader = new FlightRecordReader(file);
+                try {
+                    double[] intrinsics = concat(reader.getCameraMatrix(), reader.getDistCoeffs());
+                    for (int i = 0; i < reader.getFrameCount(); i++) {
+                        FlightRecordReader.Frame frame = reader.getFrame(i);
+                        Mat image = toMat(frame);
+                        Mat[] maps = undistortMaps(intrinsics, image.size(), mapsByIntrinsics);
+                        frames.add(new EvaluationFrame(file.getName() + "#" + i + ":" + frame.getLabel(),
+                                image, maps[0], maps[1]));
+                    }
+                }
+                finally {
+                    reader.close();
+                }
+            }
+            else if (name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".png")) {
+                if (!isRawCapture(file.getName())) {
+                    skipped++;
+                    continue;
+                }
+
+                Mat image = Imgcodecs.imread(file.getPath(), Imgcodecs.IMREAD_GRAYSCALE);
+                if (image.empty()) {
+                    System.err.println("Could not read " + file);
+                    continue;
+                }
+                Mat[] maps = undistortMaps(imageIntrinsics, image.size(), mapsByIntrinsics);
+                frames.add(new EvaluationFrame(file.getName(), image, maps[0], maps[1]));
+            }
+        }
+
+        if (skipped > 0) {
+            System.out.println("Skipped " + skipped + " images that are not raw NavCam captures");
+        }
+        return frames;
+    }
+
+    private static boolean isRawCapture(String fileName) {
+        for (String prefix : RAW_CAPTURE_PREFIXES) {
+            if (fileName.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    private static Mat toMat(FlightRecordReader.Frame frame) {
+        ByteBuffer pixels = frame.getPixels();
+        byte[] data = new byte[pixels.remaining()];
+        pixels.get(data);
+
+        Mat image = new Mat(frame.getHeight(), frame.getWidth(), CvType.CV_8UC1);
+        image.put(0, 0, data);
+        return image;
+    }
+
+    /**
+     * @param intrinsics 9 camera matrix values followed by the distortion coefficients, or null
+     * @return {map1, map2}, both null if there are no usable intrinsics
+     */
+    private static Mat[] undistortMaps(double[] intrinsics, Size size, Map<String, Mat[]> cache) {
+        if (intrinsics == null || intrinsics.length < 9 || intrinsics[0] <= 0) {
+            return new Mat[2];
+        }
+
+        String key = Arrays.toString(intrinsics) + "@" + size;
+        Mat[] maps = cache.get(key);
+        if (maps != null) {
+            return maps;
+        }
+
+        Mat cameraMatrix = new Mat(3, 3, CvType.CV_64F);
+        cameraMatrix.put(0, 0, Arrays.copyOfRange(intrinsics, 0, 9));
+        MatOfDouble distCoeffs = new MatOfDouble(Arrays.copyOfRange(intrinsics, 9, intrinsics.length));
+
+        maps = new Mat[]{new Mat(), new Mat()};
+        Calib3d.initUndistortRectifyMap(cameraMatrix, distCoeffs, new Mat(), cameraMatrix, size,
+                CvType.CV_16SC2, maps[0], maps[1]);
+        cache.put(key, maps);
+        return maps;
+    }
+
+    /**
+     * Parses "fx,fy,cx,cy,k1,k2,p1,p2,k3" into a flattened camera matrix followed by the coefficients.
+     */
+    private static double[] parseIntrinsics(String value) {
+        String[] parts = value.split(",");
+        if (parts.length < 4) {
+            throw new IllegalArgumentException("--intrinsics needs at least fx,fy,cx,cy");
+        }
+
+        double[] numbers = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            numbers[i] = Double.parseDouble(parts[i].trim());
+        }
+
+        double[] cameraMatrix = {numbers[0], 0, numbers[2], 0, numbers[1], numbers[3], 0, 0, 1};
+        return concat(cameraMatrix, Arrays.copyOfRange(numbers, 4, numbers.length));
+    }
+
+    private static double[] concat(double[] a, double[] b) {
+        double[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static class ConfigResult {
+        private final DetectorConfig config;
+        private final int frames;
+        private final double detectionRate;
+        private final double meanMarkers;
+        private final double meanMs;
+        private final double p95Ms;
+
+        ConfigResult(DetectorConfig config, int frames, double detectionRate, double meanMarkers,
+                     double meanMs, double p95Ms) {
+            this.config = config;
+            this.frames = frames;
+            this.detectionRate = detectionRate;
+            this.meanMarkers = meanMarkers;
+            this.meanMs = meanMs;
+            this.p95Ms = p95Ms;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk.tools;
+
+import org.opencv.aruco.Aruco;
+import org.opencv.aruco.DetectorParameters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One point of the parameter grid swept by {@link BatchEvaluator}. The grid also holds the detector
+ * parameter sets the app itself uses, and marks the settings the app cannot apply.
+ *
+ * @author Hashib Islam (#)
+ * @since 2025-04-24
+ */
+
+public class DetectorConfig {
+    private static final boolean[] UNDISTORT = {true, false};
+    private static final double[] SCALES = {1.0, 0.5};
+    private static final int[] CORNER_REFINEMENTS = {Aruco.CORNER_REFINE_NONE, Aruco.CORNER_REFINE_SUBPIX};
+    private static final int[] THRESH_WIN_SIZE_STEPS = {10, 20};
+    private static final double[] MIN_MARKER_PERIMETER_RATES = {0.03, 0.06};
+
+    // OpenCV's DetectorParameters defaults, which VisionService detects with on the first pass
+    private static final int DEFAULT_THRESH_WIN_SIZE_MAX = 23;
+    private static final int DEFAULT_THRESH_WIN_SIZE_STEP = 10;
+    private static final double DEFAULT_MIN_MARKER_PERIMETER_RATE = 0.03;
+    // mirror Constants.RETRY_DETECTION_*, which the app's permissive second pass uses
+    private static final int PERMISSIVE_THRESH_WIN_SIZE_MAX = 53;
+    private static final int PERMISSIVE_THRESH_WIN_SIZE_STEP = 4;
+    private static final double PERMISSIVE_MIN_MARKER_PERIMETER_RATE = 0.01;
+
+    private final boolean undistort;
+    private final double scale;
+    private final int cornerRefinement;
+    private final int threshWinSizeMax;
+    private final int threshWinSizeStep;
+    private final double minMarkerPerimeterRate;
+    private final String appName;
+
+    public DetectorConfig(boolean undistort, double scale, int cornerRefinement, int threshWinSizeMax,
+                          int threshWinSizeStep, double minMarkerPerimeterRate, String appName) {
+        this.undistort = undistort;
+        this.scale = scale;
+        this.cornerRefinement = cornerRefinement;
+        this.threshWinSizeMax = threshWinSizeMax;
+        this.threshWinSizeStep = threshWinSizeStep;
+        this.minMarkerPerimeterRate = minMarkerPerimeterRate;
+        this.appName = appName;
+    }
+
+    /**
+     * @return the app's default and permissive parameter sets, followed by every other combination
+     * of the swept settings
+     */
+    public static List<DetectorConfig> grid() {
+        List<DetectorConfig> configs = new ArrayList<>();
+        configs.add(new DetectorConfig(true, 1.0, Aruco.CORNER_REFINE_NONE, DEFAULT_THRESH_WIN_SIZE_MAX,
+                DEFAULT_THRESH_WIN_SIZE_STEP, DEFAULT_MIN_MARKER_PERIMETER_RATE, "app default"));
+        configs.add(new DetectorConfig(true, 1.0, Aruco.CORNER_REFINE_NONE, PERMISSIVE_THRESH_WIN_SIZE_MAX,
+                PERMISSIVE_THRESH_WIN_SIZE_STEP, PERMISSIVE_MIN_MARKER_PERIMETER_RATE, "app permissive"));
+
+        for (boolean undistort : UNDISTORT) {
+            for (double scale : SCALES) {
+                for (int refinement : CORNER_REFINEMENTS) {
+                    for (int step : THRESH_WIN_SIZE_STEPS) {
+                        for (double rate : MIN_MARKER_PERIMETER_RATES) {
+                            DetectorConfig config = new DetectorConfig(undistort, scale, refinement,
+                                    DEFAULT_THRESH_WIN_SIZE_MAX, step, rate, null);
+                            if (!config.hasSettingsOf(configs.get(0))) configs.add(config);
+                        }
+                    }
+                }
+            }
+        }
+        return configs;
+    }
+
+    private boolean hasSettingsOf(DetectorConfig other) {
+        return undistort == other.undistort
+                && scale == other.scale
+                && cornerRefinement == other.cornerRefinement
+                && threshWinSizeMax == other.threshWinSizeMax
+                && threshWinSizeStep == other.threshWinSizeStep
+                && minMarkerPerimeterRate == other.minMarkerPerimeterRate;
+    }
+
+    /**
+     * @return fresh detector parameters for this configuration (not shared between threads)
+     */
+    public DetectorParameters createParameters() {
+        DetectorParameters parameters = DetectorParameters.create();
+        parameters.set_cornerRefinementMethod(cornerRefinement);
+        parameters.set_adaptiveThreshWinSizeMax(threshWinSizeMax);
+        parameters.set_adaptiveThreshWinSizeStep(threshWinSizeStep);
+        parameters.set_minMarkerPerimeterRate(minMarkerPerimeterRate);
+        return parameters;
+    }
+
+    public boolean isUndistort() {
+        return undistort;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * @return true if VisionService can run this configuration: it always undistorts and never scales
+     * frames, so only detector parameters can change
+     */
+    public boolean isAppApplicable() {
+        return undistort && scale == 1.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("undistort=%-5s scale=%.2f refine=%-6s winMax=%-2d winStep=%-2d minPerimeter=%.2f%s",
+                undistort, scale,
+                cornerRefinement == Aruco.CORNER_REFINE_NONE ? "none" : "subpix",
+                threshWinSizeMax, threshWinSizeStep, minMarkerPerimeterRate,
+                appName != null ? " [" + appName + "]" : isAppApplicable() ? "" : " [app can't use]");
+    }
+}
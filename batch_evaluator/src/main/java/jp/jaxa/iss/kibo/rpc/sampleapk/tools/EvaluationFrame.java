@@ -0,0 +1,48 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk.tools;
+
+import org.opencv.core.Mat;
+
+/**
+ * A recorded frame loaded for evaluation, with the undistortion maps of the camera it came from.
+ * Shared read-only between worker threads.
+ *
+ * @author Hashib Islam (#)
+ * @since 2025-04-24
+ */
+
+public class EvaluationFrame {
+    private final String name;
+    private final Mat image;
+    private final Mat undistortMap1;
+    private final Mat undistortMap2;
+
+    public EvaluationFrame(String name, Mat image, Mat undistortMap1, Mat undistortMap2) {
+        this.name = name;
+        this.image = image;
+        this.undistortMap1 = undistortMap1;
+        this.undistortMap2 = undistortMap2;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Mat getImage() {
+        return image;
+    }
+
+    /**
+     * @return true if intrinsics were available, so the frame can be undistorted
+     */
+    public boolean hasUndistortMaps() {
+        return undistortMap1 != null && undistortMap2 != null;
+    }
+
+    public Mat getUndistortMap1() {
+        return undistortMap1;
+    }
+
+    public Mat getUndistortMap2() {
+        return undistortMap2;
+    }
+}
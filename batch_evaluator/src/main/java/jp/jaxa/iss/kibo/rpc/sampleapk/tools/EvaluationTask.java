@@ -0,0 +1,113 @@
+package jp.jaxa.iss.kibo.rpc.sampleapk.tools;
+
+import org.opencv.aruco.Aruco;
+import org.opencv.aruco.Dictionary;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork-join task over a range of (config, frame) work items. Each item runs the
+ * undistort + ArUco pipeline once and stores the marker count and latency at its index.
+ * Undistorting configurations are skipped on frames without intrinsics.
+ *
+ * @author Hashib Islam (#)
+ * @since 2025-04-24
+ */
+
+public class EvaluationTask extends RecursiveAction {
+    private static final int LEAF_SIZE = 4;
+    // marker count of items that were not evaluated
+    static final int SKIPPED = -1;
+
+    private final List<DetectorConfig> configs;
+    private final List<EvaluationFrame> frames;
+    private final Dictionary dictionary;
+    private final int[] markerCounts;
+    private final long[] latenciesNs;
+    private final int from;
+    private final int to;
+
+    /**
+     * @param markerCounts output, one slot per item (config index * frame count + frame index), SKIPPED if not run
+     * @param latenciesNs  output, one slot per item
+     */
+    public EvaluationTask(List<DetectorConfig> configs, List<EvaluationFrame> frames, Dictionary dictionary,
+                          int[] markerCounts, long[] latenciesNs, int from, int to) {
+        this.configs = configs;
+        this.frames = frames;
+        this.dictionary = dictionary;
+        this.markerCounts = markerCounts;
+        this.latenciesNs = latenciesNs;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= LEAF_SIZE) {
+            for (int item = from; item < to; item++) {
+                DetectorConfig config = configs.get(item / frames.size());
+                EvaluationFrame frame = frames.get(item % frames.size());
+
+                if (config.isUndistort() && !frame.hasUndistortMaps()) {
+                    markerCounts[item] = SKIPPED;
+                    continue;
+                }
+
+                long start = System.nanoTime();
+                markerCounts[item] = detect(config, frame, dictionary);
+                latenciesNs[item] = System.nanoTime() - start;
+            }
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        invokeAll(
+                new EvaluationTask(configs, frames, dictionary, markerCounts, latenciesNs, from, middle),
+                new EvaluationTask(configs, frames, dictionary, markerCounts, latenciesNs, middle, to)
+        );
+    }
+
+    /**
+     * Runs the same steps as VisionService.readArTag under the given configuration.
+     *
+     * @return number of detected markers
+     */
+    static int detect(DetectorConfig config, EvaluationFrame frame, Dictionary dictionary) {
+        List<Mat> temporaries = new ArrayList<>();
+        List<Mat> corners = new ArrayList<>();
+        Mat ids = new Mat();
+
+        try {
+            Mat image = frame.getImage();
+
+            if (config.isUndistort() && frame.hasUndistortMaps()) {
+                Mat undistorted = new Mat();
+                temporaries.add(undistorted);
+                Imgproc.remap(image, undistorted, frame.getUndistortMap1(), frame.getUndistortMap2(),
+                        Imgproc.INTER_LINEAR);
+                image = undistorted;
+            }
+
+            if (config.getScale() != 1.0) {
+                Mat scaled = new Mat();
+                temporaries.add(scaled);
+                Imgproc.resize(image, scaled, new Size(), config.getScale(), config.getScale(), Imgproc.INTER_AREA);
+                image = scaled;
+            }
+
+            Aruco.detectMarkers(image, dictionary, corners, ids, config.createParameters());
+            return (int) ids.total();
+        }
+        finally {
+            for (Mat mat : temporaries) mat.release();
+            for (Mat corner : corners) corner.release();
+            ids.release();
+        }
+    }
+}